@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.api;
+
+import java.util.List;
+
+/**
+ * Message listener receiving inbound data in batches. Messages are
+ * accumulated per I/O thread until either batch size or linger time
+ * configured for the listener is reached. Messages of a single connection
+ * are always delivered in order.
+ */
+public interface TCPBatchMessageListener {
+
+	void initialized();
+	void onMessages(List<TCPMessage> messages);
+	void disconnected(TCPDisconnectionNotification notification);
+}
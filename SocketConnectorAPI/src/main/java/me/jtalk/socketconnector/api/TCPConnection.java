@@ -18,6 +18,8 @@
 package me.jtalk.socketconnector.api;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionStage;
 import javax.resource.NotSupportedException;
 import javax.resource.ResourceException;
 
@@ -41,6 +43,78 @@ public interface TCPConnection extends AutoCloseable {
 	 */
 	void send(ByteBuffer message) throws NotSupportedException, ResourceException;
 
+	/**
+	 * Sends message consisting of several buffers to underlying connection.
+	 * Buffers are written with a single gathering write, as if they were
+	 * concatenated, without copying them into a single buffer first.
+	 * @param message buffers to send to socket, in order.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws NotSupportedException if called on listening connection
+	 * @throws ResourceException in case of generic error.
+	 */
+	void send(ByteBuffer... message) throws NotSupportedException, ResourceException;
+
+	/**
+	 * Sends message to underlying connection without waiting for it to be
+	 * written to the socket.
+	 * @param message binary data to send to socket. Heap buffers are copied
+	 * before this method returns, direct buffers must not be modified until
+	 * the stage returned is completed.
+	 * @return Stage completed once the data is written to the socket, or
+	 * completed exceptionally with ConnectionClosedException if the socket
+	 * is closed before that and ResourceException in case of other errors.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws NotSupportedException if called on listening connection
+	 * @throws ResourceException in case of generic error.
+	 */
+	CompletionStage<Void> sendAsync(ByteBuffer message) throws NotSupportedException, ResourceException;
+
+	/**
+	 * Sends a region of a file to underlying connection without loading it
+	 * to memory. File is transferred by the kernel where the transport
+	 * supports it, and read in chunks otherwise.
+	 * @param file file to send.
+	 * @param offset position in the file to start sending from.
+	 * @param length number of bytes to send.
+	 * @return Stage completed once the region is written to the socket, or
+	 * completed exceptionally with ConnectionClosedException if the socket
+	 * is closed before that and ResourceException in case of other errors.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws NotSupportedException if called on listening connection
+	 * @throws ResourceException if the file cannot be opened or is shorter than
+	 * the region requested, or in case of generic error.
+	 */
+	CompletionStage<Void> sendFile(Path file, long offset, long length) throws NotSupportedException, ResourceException;
+
+	/**
+	 * Checks whether data sent to this connection is written to the socket
+	 * without queueing up. Once the data queued reaches the write buffer high
+	 * water mark, connection becomes unwritable until it is drained below the
+	 * low water mark. Sending to an unwritable connection still succeeds, but
+	 * producers are expected to slow down.
+	 * @return Whether connection is writable.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws NotSupportedException if called on listening connection
+	 * @throws ResourceException in case of generic error.
+	 */
+	boolean isWritable() throws NotSupportedException, ResourceException;
+
+	/**
+	 * Awaits connection writability.
+	 * @return Stage completed once the connection is writable, immediately
+	 * if it is writable already. Stage is completed exceptionally with
+	 * ConnectionClosedException if the socket is closed before that.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws NotSupportedException if called on listening connection
+	 * @throws ResourceException in case of generic error.
+	 */
+	CompletionStage<Void> whenWritable() throws NotSupportedException, ResourceException;
+
 	/**
 	 * Performs disconnection of the socket with ID associated with this connection
 	 * object. This connection will be detached from it's parent ManagedConnection
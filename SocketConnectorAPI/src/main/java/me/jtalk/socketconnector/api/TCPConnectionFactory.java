@@ -19,6 +19,8 @@ package me.jtalk.socketconnector.api;
 
 import java.io.Serializable;
 import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 import javax.resource.Referenceable;
 import javax.resource.ResourceException;
 
@@ -27,4 +29,41 @@ public interface TCPConnectionFactory extends Serializable, Referenceable {
 	TCPConnection getConnection(long uid, long connectionId) throws ResourceException;
 	TCPConnection createConnection(long uid, InetSocketAddress target) throws ResourceException;
 	TCPConnection listen(long uid, InetSocketAddress address) throws ResourceException;
+
+	/**
+	 * Connects to remote address without blocking the caller. Stages
+	 * returned are completed on I/O threads: anything blocking, including
+	 * getConnection, must be done in stages with an executor supplied.
+	 * @param uid client ID.
+	 * @param target address to connect to.
+	 * @return Stage completed with ID of the connection established, to be
+	 * passed to getConnection, or completed exceptionally with
+	 * ResourceException if connecting failed or timed out.
+	 * @throws ResourceException if the address is invalid or client is unknown.
+	 */
+	CompletionStage<Long> createConnectionAsync(long uid, InetSocketAddress target) throws ResourceException;
+
+	/**
+	 * Connects to several remote addresses at once, keeping at most
+	 * connectConcurrency attempts of the client in progress. Stages are
+	 * completed on I/O threads, as with createConnectionAsync.
+	 * @param uid client ID.
+	 * @param targets addresses to connect to.
+	 * @return Stages completed with IDs of the connections established, in
+	 * the order of targets. Each one fails on its own.
+	 * @throws ResourceException if any of the addresses is invalid or client
+	 * is unknown.
+	 */
+	List<CompletionStage<Long>> connectAll(long uid, List<InetSocketAddress> targets) throws ResourceException;
+
+	/**
+	 * Starts listening to local address without blocking the caller.
+	 * Stages are completed on I/O threads, as with createConnectionAsync.
+	 * @param uid client ID.
+	 * @param address address to listen to.
+	 * @return Stage completed with ID of the listening connection, or
+	 * completed exceptionally with ResourceException if binding failed.
+	 * @throws ResourceException if the address is invalid or client is unknown.
+	 */
+	CompletionStage<Long> listenAsync(long uid, InetSocketAddress address) throws ResourceException;
 }
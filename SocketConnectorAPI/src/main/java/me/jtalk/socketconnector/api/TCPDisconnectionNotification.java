@@ -28,4 +28,16 @@ public interface TCPDisconnectionNotification {
 
 	boolean isError();
 	Throwable getCause();
+
+	/**
+	 * Whether the connection is redialed by the adapter. Its ID stays valid
+	 * and resolves to the new link once it is established; sending fails
+	 * with RetryableUnavailableException until then.
+	 * @return True if the link is lost but the connection is not closed.
+	 * Implementations written before reconnection was introduced always
+	 * return false.
+	 */
+	default boolean isReconnecting() {
+		return false;
+	}
 }
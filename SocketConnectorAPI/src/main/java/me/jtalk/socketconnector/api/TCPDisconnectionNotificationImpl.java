@@ -25,12 +25,18 @@ public class TCPDisconnectionNotificationImpl implements TCPDisconnectionNotific
 	private final SocketAddress remote;
 	private final SocketAddress local;
 	private final Throwable cause;
+	private final boolean reconnecting;
 
 	public TCPDisconnectionNotificationImpl(long connectionId, SocketAddress remote, SocketAddress local, Throwable cause) {
+		this(connectionId, remote, local, cause, false);
+	}
+
+	public TCPDisconnectionNotificationImpl(long connectionId, SocketAddress remote, SocketAddress local, Throwable cause, boolean reconnecting) {
 		this.connectionId = connectionId;
 		this.remote = remote;
 		this.local = local;
 		this.cause = cause;
+		this.reconnecting = reconnecting;
 	}
 
 	@Override
@@ -58,4 +64,9 @@ public class TCPDisconnectionNotificationImpl implements TCPDisconnectionNotific
 		return this.cause;
 	}
 
+	@Override
+	public boolean isReconnecting() {
+		return this.reconnecting;
+	}
+
 }
@@ -18,11 +18,48 @@
 package me.jtalk.socketconnector.api;
 
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 
+/**
+ * Data received from a TCP connection. Messages may be kept after onMessage
+ * returns, except when the listener enables both zeroCopyReceive and
+ * recycleMessages: message objects are then reused for later reads, and
+ * the message must not be used after onMessage returns.
+ */
 public interface TCPMessage {
 
 	long getConnectionId();
 	SocketAddress getRemote();
 	SocketAddress getLocal();
+
+	/**
+	 * Time the message data was read from the socket, as returned by
+	 * System.nanoTime. It is only meaningful within the same JVM, to tell how
+	 * long the message waited before the delivery.
+	 * @return Receive time in nanoseconds, 0 if unknown. Implementations
+	 * written before the timestamp was introduced always return 0.
+	 */
+	default long getReceiveTimestamp() {
+		return 0;
+	}
+
+	/**
+	 * Message data as a standalone array. If the message is backed by a pooled
+	 * buffer, the array is copied from it on the first call, so this method
+	 * must be called before onMessage returns to obtain the data.
+	 * @return Message data array, remains valid after onMessage returns,
+	 * even if the message object is recycled.
+	 */
 	byte[] getData();
-}
\ No newline at end of file
+
+	/**
+	 * Read-only view of message data. If zero copy receiving is enabled for
+	 * the listener, the view points directly to the adapter's pooled buffer
+	 * and is only valid until onMessage returns. The view must not be used
+	 * or stored after that, use getData to keep the data.
+	 * @return Read-only buffer positioned at the beginning of message data.
+	 */
+	default ByteBuffer getBuffer() {
+		return ByteBuffer.wrap(getData()).asReadOnlyBuffer();
+	}
+}
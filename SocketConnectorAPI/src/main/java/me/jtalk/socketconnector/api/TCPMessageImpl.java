@@ -25,12 +25,18 @@ public class TCPMessageImpl implements TCPMessage {
 	private final SocketAddress remote;
 	private final SocketAddress local;
 	private final byte[] data;
+	private final long receiveTimestamp;
 
 	public TCPMessageImpl(long connectionId, SocketAddress remote, SocketAddress local, byte[] data) {
+		this(connectionId, remote, local, data, System.nanoTime());
+	}
+
+	public TCPMessageImpl(long connectionId, SocketAddress remote, SocketAddress local, byte[] data, long receiveTimestamp) {
 		this.connectionId = connectionId;
 		this.remote = remote;
 		this.local = local;
 		this.data = data;
+		this.receiveTimestamp = receiveTimestamp;
 	}
 
 	@Override
@@ -48,6 +54,11 @@ public class TCPMessageImpl implements TCPMessage {
 		return this.local;
 	}
 
+	@Override
+	public long getReceiveTimestamp() {
+		return this.receiveTimestamp;
+	}
+
 	@Override
 	public byte[] getData() {
 		return this.data;
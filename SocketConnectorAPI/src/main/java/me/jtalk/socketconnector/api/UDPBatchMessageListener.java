@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.api;
+
+import java.util.List;
+
+/**
+ * Message listener receiving datagrams in batches. A batch contains the
+ * datagrams read by a socket in a single I/O pass, which is many of them
+ * under high load and a single one when the socket is idle otherwise.
+ */
+public interface UDPBatchMessageListener {
+
+	void initialized();
+	void onMessages(List<UDPMessage> messages);
+}
@@ -19,8 +19,72 @@ package me.jtalk.socketconnector.api;
 
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.List;
+import javax.resource.ResourceException;
 
-public interface UDPConnection {
+public interface UDPConnection extends AutoCloseable {
 
-	void sendTo(InetSocketAddress target, ByteBuffer data);
+	/**
+	 * Underlying socket ID. This ID is unique per bound datagram socket.
+	 * @return Socket ID value.
+	 * @throws ResourceException if UDPConnection is detached from ManagedConnection.
+	 */
+	long getId() throws ResourceException;
+
+	/**
+	 * Sends datagram from the underlying socket. This method does not wait
+	 * for the datagram to be written: UDP gives no delivery guarantees anyway.
+	 * @param target datagram recipient address.
+	 * @param data datagram payload.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws ResourceException in case of generic error.
+	 */
+	void send(InetSocketAddress target, ByteBuffer data) throws ResourceException;
+
+	/**
+	 * Sends several datagrams to the same recipient at once, one per buffer.
+	 * Datagrams are passed to the kernel with as few syscalls as the
+	 * transport allows, and with UDP segmentation offload if enabled.
+	 * @param target datagrams recipient address.
+	 * @param data datagrams payloads, in order.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws ResourceException in case of generic error.
+	 */
+	void send(InetSocketAddress target, List<ByteBuffer> data) throws ResourceException;
+
+	/**
+	 * Same as {@link #send(InetSocketAddress, ByteBuffer)}, with errors
+	 * reported unchecked.
+	 * @param target datagram recipient address.
+	 * @param data datagram payload.
+	 * @throws IllegalStateException if the datagram cannot be sent, with
+	 * the ResourceException as the cause.
+	 * @deprecated Use send, which reports errors as ResourceException.
+	 */
+	@Deprecated
+	default void sendTo(InetSocketAddress target, ByteBuffer data) {
+		try {
+			this.send(target, data);
+		} catch (ResourceException e) {
+			throw new IllegalStateException("Datagram cannot be sent", e);
+		}
+	}
+
+	/**
+	 * Closes the socket with ID associated with this connection object.
+	 * @throws ConnectionClosedException if socket with ID associated with this
+	 * connection object is already closed.
+	 * @throws ResourceException in case of generic error.
+	 */
+	void disconnect() throws ResourceException;
+
+	/**
+	 * Detaches this connection object from its underlying ManagedConnection. The
+	 * actual socket associated with this ID is not closed (!)
+	 * @throws ResourceException in case of generic error.
+	 */
+	@Override
+	void close() throws ResourceException;
 }
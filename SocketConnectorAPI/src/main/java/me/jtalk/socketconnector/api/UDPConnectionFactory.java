@@ -17,10 +17,28 @@
 
 package me.jtalk.socketconnector.api;
 
+import java.io.Serializable;
 import java.net.InetSocketAddress;
+import javax.resource.NotSupportedException;
+import javax.resource.Referenceable;
 import javax.resource.ResourceException;
 
-public interface UDPConnectionFactory {
+public interface UDPConnectionFactory extends Serializable, Referenceable {
 
-	UDPConnection getConnection(InetSocketAddress target) throws ResourceException;
+	UDPConnection getConnection(long uid, long connectionId) throws ResourceException;
+	UDPConnection bind(long uid, InetSocketAddress local) throws ResourceException;
+
+	/**
+	 * Sockets belong to a client, which this method does not name, so no
+	 * socket can be obtained through it.
+	 * @param target address to send datagrams to.
+	 * @return Never returns.
+	 * @throws ResourceException always, NotSupportedException.
+	 * @deprecated Use bind with a client ID and a local address, and pass
+	 * the target to send.
+	 */
+	@Deprecated
+	default UDPConnection getConnection(InetSocketAddress target) throws ResourceException {
+		throw new NotSupportedException("UDP sockets must be bound through bind(uid, local)");
+	}
 }
@@ -18,10 +18,33 @@
 package me.jtalk.socketconnector.api;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 
 public interface UDPMessage {
 
+	/**
+	 * ID of the socket the datagram is received on.
+	 * @return Socket ID, or -1 if the message is not received by the adapter.
+	 */
+	default long getConnectionId() {
+		return -1;
+	}
+
 	InetSocketAddress getRemote();
 	InetSocketAddress getLocal();
+
+	/**
+	 * Datagram payload.
+	 * @return Datagram payload copy owned by the receiver.
+	 */
 	byte[] getData();
+
+	/**
+	 * Datagram payload view. Unlike getData, this method does not copy the
+	 * payload if it is backed by a buffer already.
+	 * @return Read-only buffer with the payload.
+	 */
+	default ByteBuffer getBuffer() {
+		return ByteBuffer.wrap(getData()).asReadOnlyBuffer();
+	}
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.api;
+
+import java.net.InetSocketAddress;
+
+public class UDPMessageImpl implements UDPMessage {
+
+	private final long connectionId;
+	private final InetSocketAddress remote;
+	private final InetSocketAddress local;
+	private final byte[] data;
+
+	public UDPMessageImpl(long connectionId, InetSocketAddress remote, InetSocketAddress local, byte[] data) {
+		this.connectionId = connectionId;
+		this.remote = remote;
+		this.local = local;
+		this.data = data;
+	}
+
+	@Override
+	public long getConnectionId() {
+		return this.connectionId;
+	}
+
+	@Override
+	public InetSocketAddress getRemote() {
+		return this.remote;
+	}
+
+	@Override
+	public InetSocketAddress getLocal() {
+		return this.local;
+	}
+
+	@Override
+	public byte[] getData() {
+		return this.data;
+	}
+
+}
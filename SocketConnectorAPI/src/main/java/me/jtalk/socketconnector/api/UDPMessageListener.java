@@ -19,5 +19,12 @@ package me.jtalk.socketconnector.api;
 
 public interface UDPMessageListener {
 
+	/**
+	 * Called once the listener's client is activated. Does nothing by
+	 * default.
+	 */
+	default void initialized() {
+	}
+
 	void onMessage(UDPMessage message);
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Accept rate of a listener under a connection storm: several threads open
+ * bursts of connections and reset them, then wait for the adapter to
+ * accept, register and report the shutdown of every one. With reusePort
+ * the listener is sharded across listener threads. Connections are reset
+ * rather than closed, so that client ports are not exhausted by TIME_WAIT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AcceptBenchmark {
+
+	private static final int BURST = 16;
+	private static final long ACCEPT_TIMEOUT_SEC = 10;
+
+	@Param({"epoll", "io_uring"})
+	public String transport;
+
+	@Param({"false", "true"})
+	public boolean reusePort;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private InetSocketAddress address;
+	private final AtomicLong opened = new AtomicLong();
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(new CountingEndpointFactory(), spec -> {
+			spec.setTransport(this.transport);
+			spec.setReusePort(this.reusePort);
+			spec.setListnerThreadsCount(4);
+			spec.setBacklog(1024);
+		});
+		this.address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, this.address);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public long accept() throws IOException {
+		SocketChannel[] burst = new SocketChannel[BURST];
+		for (int i = 0; i < BURST; i++) {
+			burst[i] = SocketChannel.open(this.address);
+		}
+		for (SocketChannel channel : burst) {
+			channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+			channel.close();
+		}
+		long target = this.opened.addAndGet(BURST);
+		if (!this.fixture.endpoints.awaitDisconnections(target, ACCEPT_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+			throw new IllegalStateException(String.format("%d connections are not accepted",
+				target - this.fixture.endpoints.disconnections()));
+		}
+		return target;
+	}
+}
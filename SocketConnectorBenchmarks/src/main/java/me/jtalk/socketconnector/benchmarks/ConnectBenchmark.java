@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loopback connection rate: a connection is established to a listener of
+ * the same client, then closed. Bulk variant establishes a number of
+ * connections with connectAll before closing them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectBenchmark {
+
+	private static final int BULK = 256;
+
+	@Param({"nio", "epoll", "io_uring"})
+	public String transport;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private InetSocketAddress address;
+	private List<InetSocketAddress> targets;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(new CountingEndpointFactory(), spec -> {
+			spec.setTransport(this.transport);
+			spec.setBacklog(BULK);
+		});
+		this.address = AdapterFixture.freeLoopbackAddress();
+		this.targets = Collections.nCopies(BULK, this.address);
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, this.address);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	@Benchmark
+	public long connect() throws Exception {
+		long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+		this.fixture.adapter.closeTCPConnection(AdapterFixture.CLIENT_ID, id);
+		return id;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK)
+	public int connectAll() throws Exception {
+		List<CompletionStage<Long>> stages = this.fixture.adapter.createTCPConnections(AdapterFixture.CLIENT_ID, this.targets);
+		List<Long> ids = new ArrayList<>(stages.size());
+		for (CompletionStage<Long> stage : stages) {
+			ids.add(stage.toCompletableFuture().get());
+		}
+		for (long id : ids) {
+			this.fixture.adapter.closeTCPConnection(AdapterFixture.CLIENT_ID, id);
+		}
+		return ids.size();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.io.ConnectionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Connection lookup by ID with many live connections: the primitive
+ * registry against the boxed ConcurrentHashMap it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ConnectionRegistryBenchmark {
+
+	private static final int LOOKUPS = 4096;
+
+	@Param({"1000", "100000"})
+	public int connections;
+
+	private final ConnectionRegistry<Object> registry = new ConnectionRegistry<>();
+	private final ConcurrentHashMap<Long, Object> map = new ConcurrentHashMap<>();
+	private long[] registryIds;
+	private long[] mapIds;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+	}
+
+	@Setup
+	public void setUp() {
+		long[] allRegistryIds = new long[this.connections];
+		for (int i = 0; i < this.connections; i++) {
+			Object context = new Object();
+			allRegistryIds[i] = this.registry.reserve();
+			this.registry.put(allRegistryIds[i], context);
+			this.map.put((long)i + 1, context);
+		}
+		Random random = new Random(42);
+		this.registryIds = new long[LOOKUPS];
+		this.mapIds = new long[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			int index = random.nextInt(this.connections);
+			this.registryIds[i] = allRegistryIds[index];
+			this.mapIds[i] = index + 1;
+		}
+	}
+
+	@Benchmark
+	public Object registry(Cursor cursor) {
+		return this.registry.get(this.registryIds[cursor.next++ & (LOOKUPS - 1)]);
+	}
+
+	@Benchmark
+	public Object concurrentHashMap(Cursor cursor) {
+		return this.map.get(this.mapIds[cursor.next++ & (LOOKUPS - 1)]);
+	}
+
+	@Benchmark
+	public long registryChurn() {
+		long id = this.registry.reserve();
+		this.registry.put(id, this);
+		this.registry.remove(id);
+		return id;
+	}
+}
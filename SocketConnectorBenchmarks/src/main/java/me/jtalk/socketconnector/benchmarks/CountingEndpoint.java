@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.api.TCPMessage;
+import me.jtalk.socketconnector.api.TCPMessageListener;
+import me.jtalk.socketconnector.api.UDPMessage;
+import me.jtalk.socketconnector.api.UDPMessageListener;
+
+/**
+ * Message endpoint counting messages, bytes and disconnections delivered. All the endpoints
+ * created by a factory share the same counters.
+ */
+class CountingEndpoint implements TCPMessageListener, UDPMessageListener, MessageEndpoint {
+
+	private final AtomicLong messages;
+	private final AtomicLong bytes;
+	private final AtomicLong disconnections;
+
+	public CountingEndpoint(AtomicLong messages, AtomicLong bytes, AtomicLong disconnections) {
+		this.messages = messages;
+		this.bytes = bytes;
+		this.disconnections = disconnections;
+	}
+
+	@Override
+	public void initialized() {
+	}
+
+	@Override
+	public void onMessage(TCPMessage message) {
+		this.bytes.addAndGet(message.getBuffer().remaining());
+		this.messages.incrementAndGet();
+	}
+
+	@Override
+	public void onMessage(UDPMessage message) {
+		this.bytes.addAndGet(message.getBuffer().remaining());
+		this.messages.incrementAndGet();
+	}
+
+	@Override
+	public void disconnected(TCPDisconnectionNotification notification) {
+		this.disconnections.incrementAndGet();
+	}
+
+	@Override
+	public void beforeDelivery(Method method) {
+	}
+
+	@Override
+	public void afterDelivery() {
+	}
+
+	@Override
+	public void release() {
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.transaction.xa.XAResource;
+
+/**
+ * Endpoint factory creating {@link CountingEndpoint}s instead of pooled
+ * message-driven beans.
+ */
+class CountingEndpointFactory implements MessageEndpointFactory {
+
+	private final AtomicLong messages = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong disconnections = new AtomicLong();
+
+	@Override
+	public MessageEndpoint createEndpoint(XAResource xaResource) {
+		return new CountingEndpoint(this.messages, this.bytes, this.disconnections);
+	}
+
+	@Override
+	public MessageEndpoint createEndpoint(XAResource xaResource, long timeout) {
+		return this.createEndpoint(xaResource);
+	}
+
+	@Override
+	public boolean isDeliveryTransacted(Method method) {
+		return false;
+	}
+
+	@Override
+	public String getActivationName() {
+		return "benchmark";
+	}
+
+	@Override
+	public Class<?> getEndpointClass() {
+		return CountingEndpoint.class;
+	}
+
+	public long messages() {
+		return this.messages.get();
+	}
+
+	public long bytes() {
+		return this.bytes.get();
+	}
+
+	public long disconnections() {
+		return this.disconnections.get();
+	}
+
+	/**
+	 * Spins until the total number of messages delivered reaches the value
+	 * or the timeout expires.
+	 *
+	 * @return Whether all the messages are delivered.
+	 */
+	public boolean awaitMessages(long total, long timeout, TimeUnit unit) {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (this.messages.get() < total) {
+			if (System.nanoTime() - deadline > 0) {
+				return false;
+			}
+			Thread.yield();
+		}
+		return true;
+	}
+
+	/**
+	 * Spins until the total number of disconnection notifications delivered
+	 * reaches the value or the timeout expires.
+	 *
+	 * @return Whether all the notifications are delivered.
+	 */
+	public boolean awaitDisconnections(long total, long timeout, TimeUnit unit) {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (this.disconnections.get() < total) {
+			if (System.nanoTime() - deadline > 0) {
+				return false;
+			}
+			Thread.yield();
+		}
+		return true;
+	}
+
+	/**
+	 * Spins until the total number of bytes delivered reaches the value.
+	 */
+	public void awaitBytes(long total) {
+		while (this.bytes.get() < total) {
+			Thread.yield();
+		}
+	}
+}
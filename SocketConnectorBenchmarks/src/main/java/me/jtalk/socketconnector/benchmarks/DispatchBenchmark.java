@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.AdapterFixture;
+import me.jtalk.socketconnector.api.TCPMessage;
+import me.jtalk.socketconnector.api.TCPMessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of dispatching a received message to endpoints: client lookup,
+ * endpoint borrowing and the before/after delivery calls, without any I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+	@Param({"0", "8"})
+	public int endpointPoolSize;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private TCPMessage message;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(new CountingEndpointFactory(), spec -> spec.setEndpointPoolSize(this.endpointPoolSize));
+		InetSocketAddress address = new InetSocketAddress(0);
+		this.message = new TCPMessageImpl(1, address, address, new byte[64]);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	@Benchmark
+	public void dispatch() {
+		this.fixture.adapter.notifyReceived(AdapterFixture.CLIENT_ID, this.message);
+	}
+}
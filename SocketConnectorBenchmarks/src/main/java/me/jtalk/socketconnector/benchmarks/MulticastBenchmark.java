@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loopback multicast delivery: datagrams with sequence numbers are sent to
+ * a group the client has joined through its activation spec. Requires
+ * multicast to be enabled on the loopback interface.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MulticastBenchmark {
+
+	private static final String GROUP = "239.255.42.1";
+	private static final long TIMEOUT_MS = 1000;
+
+	@Param({"nio", "epoll"})
+	public String transport;
+
+	@Param({"lo"})
+	public String networkInterface;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private DatagramChannel sender;
+	private InetSocketAddress group;
+	private final ByteBuffer datagram = ByteBuffer.allocateDirect(64);
+	private long sequence;
+
+	@Setup
+	public void setUp() throws Exception {
+		int port = AdapterFixture.freeLoopbackDatagramAddress().getPort();
+		this.fixture = AdapterFixture.udp(new CountingEndpointFactory(), spec -> {
+			spec.setTransport(this.transport);
+			spec.setMulticastGroups(GROUP);
+			spec.setMulticastPort(port);
+			spec.setMulticastInterface(this.networkInterface);
+			spec.setSequenceOffset(0);
+			spec.setSequenceLength(8);
+		});
+		this.group = new InetSocketAddress(InetAddress.getByName(GROUP), port);
+		this.sender = DatagramChannel.open(StandardProtocolFamily.INET)
+			.setOption(StandardSocketOptions.IP_MULTICAST_IF, NetworkInterface.getByName(this.networkInterface))
+			.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.sender.close();
+		this.fixture.close();
+	}
+
+	@Benchmark
+	public long deliver() throws Exception {
+		this.sequence++;
+		this.datagram.clear();
+		this.datagram.putLong(0, this.sequence);
+		this.sender.send(this.datagram, this.group);
+		if (!this.fixture.endpoints.awaitMessages(this.sequence, TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+			throw new IllegalStateException("Multicast datagram " + this.sequence + " is not delivered");
+		}
+		return this.sequence;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time from a plain socket write to the data reaching a message endpoint
+ * through the adapter's listener.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiveLatencyBenchmark {
+
+	@Param({"64", "1024"})
+	public int messageSize;
+
+	@Param({"nio", "epoll", "io_uring"})
+	public String transport;
+
+	@Param({"false", "true"})
+	public boolean zeroCopyReceive;
+
+	@Param({"false", "true"})
+	public boolean offloadDelivery;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private Socket client;
+	private OutputStream output;
+	private byte[] message;
+	private long expected;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(new CountingEndpointFactory(), spec -> {
+			spec.setTransport(this.transport);
+			spec.setZeroCopyReceive(this.zeroCopyReceive);
+			spec.setRecycleMessages(this.zeroCopyReceive);
+			spec.setOffloadDelivery(this.offloadDelivery);
+		});
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		this.client = new Socket(address.getAddress(), address.getPort());
+		this.client.setTcpNoDelay(true);
+		this.output = this.client.getOutputStream();
+		this.message = new byte[this.messageSize];
+		this.expected = this.fixture.endpoints.bytes();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.client.close();
+		this.fixture.close();
+	}
+
+	@Benchmark
+	public long receive() throws Exception {
+		this.output.write(this.message);
+		this.expected += this.messageSize;
+		this.fixture.endpoints.awaitBytes(this.expected);
+		return this.expected;
+	}
+}
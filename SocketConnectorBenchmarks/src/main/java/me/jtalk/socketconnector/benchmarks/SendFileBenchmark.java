@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * File sending over a loopback connection. Transports supporting sendfile
+ * should show no heap allocation proportional to the file size with
+ * -prof gc, io_uring reads the file in chunks instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendFileBenchmark {
+
+	@Param({"65536", "16777216"})
+	public int fileSize;
+
+	@Param({"nio", "epoll", "io_uring"})
+	public String transport;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private long connectionId;
+	private Path file;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(new CountingEndpointFactory(), spec -> spec.setTransport(this.transport));
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		this.connectionId = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, address);
+		this.file = Files.createTempFile("socketconnector-benchmark", ".bin");
+		try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(this.fileSize));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+		Files.deleteIfExists(this.file);
+	}
+
+	@Benchmark
+	public long sendFile() throws Exception {
+		long expected = this.fixture.endpoints.bytes() + this.fileSize;
+		this.fixture.adapter.sendTCPFile(AdapterFixture.CLIENT_ID, this.connectionId, this.file, 0, this.fileSize)
+			.toCompletableFuture().join();
+		this.fixture.endpoints.awaitBytes(expected);
+		return expected;
+	}
+}
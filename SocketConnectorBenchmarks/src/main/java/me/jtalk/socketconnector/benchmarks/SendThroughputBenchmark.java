@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import javax.resource.spi.RetryableUnavailableException;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Send throughput over a loopback connection, with data received and
+ * delivered to endpoints of the same client. Senders wait for the
+ * connection to become writable, so the outbound buffer stays bounded.
+ *
+ * Run with -prof gc to see allocations per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SendThroughputBenchmark {
+
+	@Param({"64", "1024", "16384"})
+	public int messageSize;
+
+	@Param({"nio", "epoll", "io_uring"})
+	public String transport;
+
+	@Param({"false", "true"})
+	public boolean coalesceWrites;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private long connectionId;
+	private ByteBuffer message;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(new CountingEndpointFactory(), spec -> {
+			spec.setTransport(this.transport);
+			spec.setCoalesceWrites(this.coalesceWrites);
+		});
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		this.connectionId = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, address);
+		this.message = ByteBuffer.allocateDirect(this.messageSize);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	@Benchmark
+	public void send() throws Exception {
+		long clientId = AdapterFixture.CLIENT_ID;
+		if (!this.fixture.adapter.isTCPWritable(clientId, this.connectionId)) {
+			this.fixture.adapter.whenTCPWritable(clientId, this.connectionId).toCompletableFuture().join();
+		}
+		while (true) {
+			try {
+				this.fixture.adapter.sendTCP(clientId, this.connectionId, this.message.duplicate());
+				return;
+			} catch (RetryableUnavailableException e) {
+				// Write queue is full
+				Thread.yield();
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import me.jtalk.socketconnector.AdapterFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Datagram delivery rate with several senders, each from its own port, so
+ * that SO_REUSEPORT spreads them across receiver threads. Every sender
+ * waits for its burst to be delivered; datagrams not delivered in time are
+ * counted as lost and reported on tear down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class UDPReceiveBenchmark {
+
+	private static final int BURST = 64;
+	private static final long LOSS_TIMEOUT_MS = 100;
+
+	@Param({"64", "1024"})
+	public int datagramSize;
+
+	@Param({"nio", "epoll", "io_uring"})
+	public String transport;
+
+	@Param({"false", "true"})
+	public boolean reusePort;
+
+	@Param({"false", "true"})
+	public boolean segmentationOffload;
+
+	private AdapterFixture<CountingEndpointFactory> fixture;
+	private InetSocketAddress address;
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong lost = new AtomicLong();
+
+	@State(Scope.Thread)
+	public static class Sender {
+
+		DatagramChannel channel;
+		ByteBuffer datagram;
+
+		@Setup
+		public void setUp(UDPReceiveBenchmark benchmark) throws IOException {
+			this.channel = DatagramChannel.open();
+			this.channel.connect(benchmark.address);
+			this.datagram = ByteBuffer.allocateDirect(benchmark.datagramSize);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			this.channel.close();
+		}
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.udp(new CountingEndpointFactory(), spec -> {
+			spec.setTransport(this.transport);
+			spec.setReusePort(this.reusePort);
+			spec.setSegmentationOffload(this.segmentationOffload);
+			spec.setReceiverThreadsCount(4);
+			spec.setReceiveBufferSize(4 * 1024 * 1024);
+		});
+		this.address = AdapterFixture.freeLoopbackDatagramAddress();
+		this.fixture.adapter.bindUDP(AdapterFixture.CLIENT_ID, this.address);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		System.out.printf("%nDatagrams sent: %d, lost: %d%n", this.sent.get(), this.lost.get());
+		this.fixture.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public long receive(Sender sender) throws IOException {
+		for (int i = 0; i < BURST; i++) {
+			sender.channel.write(sender.datagram.duplicate());
+		}
+		long target = this.sent.addAndGet(BURST);
+		if (!this.fixture.endpoints.awaitMessages(target - this.lost.get(), LOSS_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+			this.lost.accumulateAndGet(target - this.fixture.endpoints.messages(), Math::max);
+		}
+		return target;
+	}
+}
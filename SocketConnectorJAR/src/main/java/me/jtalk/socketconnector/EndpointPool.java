@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import javax.resource.ResourceException;
+import javax.resource.spi.UnavailableException;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Message endpoints of a single factory, kept for reuse between deliveries.
+ *
+ * JCA allows a resource adapter to use an endpoint for any number of
+ * deliveries as long as only one thread uses it at a time. An endpoint is
+ * therefore taken out of the pool for the whole delivery and returned
+ * afterwards; endpoints which failed a delivery are released instead.
+ */
+@Slf4j
+public class EndpointPool {
+
+	@Getter
+	private final MessageEndpointFactory factory;
+
+	@Getter
+	private final boolean batch;
+
+	private final AtomicReferenceArray<MessageEndpoint> idle;
+	private volatile boolean closed;
+
+	public EndpointPool(MessageEndpointFactory factory, boolean batch, int size) {
+		this.factory = factory;
+		this.batch = batch;
+		this.idle = new AtomicReferenceArray<>(size);
+	}
+
+	/**
+	 * Delivers a message to an endpoint.
+	 *
+	 * @param <T> Message type.
+	 * @param method Listener method passed to beforeDelivery.
+	 * @param invocation Direct call of the listener method on the endpoint.
+	 * @param message Message to pass to the invocation.
+	 */
+	public <T> void deliver(Method method, BiConsumer<MessageEndpoint, T> invocation, T message) {
+		MessageEndpoint endpoint;
+		try {
+			endpoint = this.borrow();
+		} catch (UnavailableException e) {
+			log.error("Message endpoint is unavailable", e);
+			return;
+		}
+		// Only an endpoint that has completed afterDelivery is reused
+		boolean reusable = false;
+		try {
+			endpoint.beforeDelivery(method);
+			boolean delivered = false;
+			try {
+				log.trace("Sending endpoint message to ''{}'': prepare", method.getName());
+				invocation.accept(endpoint, message);
+				log.trace("Sending endpoint message to ''{}'': sent", method.getName());
+				delivered = true;
+			} catch (RuntimeException e) {
+				log.error("Exception on message endpoint invocation", e);
+			}
+			endpoint.afterDelivery();
+			reusable = delivered;
+		} catch (ResourceException | NoSuchMethodException | RuntimeException e) {
+			log.error("Exception on message endpoint processing", e);
+		} finally {
+			this.giveBack(endpoint, reusable);
+		}
+	}
+
+	/**
+	 * Releases all idle endpoints. Endpoints currently delivering messages
+	 * are released once their delivery completes.
+	 */
+	public void close() {
+		this.closed = true;
+		for (int i = 0; i < this.idle.length(); i++) {
+			MessageEndpoint endpoint = this.idle.getAndSet(i, null);
+			if (endpoint != null) {
+				endpoint.release();
+			}
+		}
+	}
+
+	private MessageEndpoint borrow() throws UnavailableException {
+		int start = startIndex();
+		for (int i = 0; i < this.idle.length(); i++) {
+			int index = (start + i) % this.idle.length();
+			MessageEndpoint endpoint = this.idle.get(index);
+			if (endpoint != null && this.idle.compareAndSet(index, endpoint, null)) {
+				return endpoint;
+			}
+		}
+		return this.factory.createEndpoint(null);
+	}
+
+	private void giveBack(MessageEndpoint endpoint, boolean reusable) {
+		if (reusable) {
+			int start = startIndex();
+			for (int i = 0; i < this.idle.length(); i++) {
+				int index = (start + i) % this.idle.length();
+				if (this.idle.get(index) == null && this.idle.compareAndSet(index, null, endpoint)) {
+					if (this.closed && this.idle.compareAndSet(index, endpoint, null)) {
+						// The pool was closed concurrently and nobody else will release it
+						endpoint.release();
+					}
+					return;
+				}
+			}
+		}
+		endpoint.release();
+	}
+
+	private int startIndex() {
+		int length = this.idle.length();
+		return length == 0 ? 0 : (int)(Thread.currentThread().getId() % length);
+	}
+}
@@ -110,6 +110,10 @@ public class ManagedTCPConnectionFactory implements ManagedConnectionFactory, Re
 		return logWriter.getLogWriter();
 	}
 
+	void printLog(String message) {
+		logWriter.printLog(message);
+	}
+
 	@Override
 	public void setResourceAdapter(ResourceAdapter ra) throws ResourceException {
 		resourceAdapter = (SocketResourceAdapter) ra;
@@ -19,7 +19,9 @@ package me.jtalk.socketconnector;
 import me.jtalk.socketconnector.utils.ValidationUtils;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
@@ -85,6 +87,46 @@ public class ManagedTCPConnectionProxy implements ManagedConnection, NamedIdObje
 		}
 	}
 
+	public void send(ByteBuffer... data) throws ResourceException {
+		if (listening) {
+			throw new NotSupportedException("Sending data through listening socket");
+		} else {
+			adapter.sendTCP(clientId, id, data);
+		}
+	}
+
+	public CompletionStage<Void> sendAsync(ByteBuffer data) throws ResourceException {
+		if (listening) {
+			throw new NotSupportedException("Sending data through listening socket");
+		} else {
+			return adapter.sendTCPAsync(clientId, id, data);
+		}
+	}
+
+	public CompletionStage<Void> sendFile(Path file, long offset, long length) throws ResourceException {
+		if (listening) {
+			throw new NotSupportedException("Sending file through listening socket");
+		} else {
+			return adapter.sendTCPFile(clientId, id, file, offset, length);
+		}
+	}
+
+	public boolean isWritable() throws ResourceException {
+		if (listening) {
+			throw new NotSupportedException("Writability requested for listening socket");
+		} else {
+			return adapter.isTCPWritable(clientId, id);
+		}
+	}
+
+	public CompletionStage<Void> whenWritable() throws ResourceException {
+		if (listening) {
+			throw new NotSupportedException("Writability requested for listening socket");
+		} else {
+			return adapter.whenTCPWritable(clientId, id);
+		}
+	}
+
 	@Override
 	public TCPConnection getConnection(Subject subject, ConnectionRequestInfo cxRequestInfo) throws ResourceException {
 		if (!isRunning.get()) {
@@ -16,22 +16,29 @@
  */
 package me.jtalk.socketconnector;
 
-import me.jtalk.socketconnector.api.TCPMessageImpl;
+import me.jtalk.socketconnector.api.TCPBatchMessageListener;
 import me.jtalk.socketconnector.api.TCPDisconnectionNotificationImpl;
 import me.jtalk.socketconnector.api.TCPMessage;
 import me.jtalk.socketconnector.api.TCPMessageListener;
 import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.api.UDPBatchMessageListener;
+import me.jtalk.socketconnector.api.UDPMessage;
+import me.jtalk.socketconnector.api.UDPMessageListener;
+import me.jtalk.socketconnector.io.ClientMap;
 import me.jtalk.socketconnector.io.TCPManager;
+import me.jtalk.socketconnector.io.UDPManager;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.resource.NotSupportedException;
@@ -42,9 +49,9 @@ import javax.resource.spi.Connector;
 import javax.resource.spi.ResourceAdapter;
 import javax.resource.spi.ResourceAdapterInternalException;
 import javax.resource.spi.TransactionSupport;
-import javax.resource.spi.UnavailableException;
 import javax.resource.spi.endpoint.MessageEndpoint;
 import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.resource.spi.work.WorkException;
 import javax.resource.spi.work.WorkManager;
 import javax.transaction.xa.XAResource;
 import javax.validation.Validation;
@@ -68,11 +75,41 @@ public class SocketResourceAdapter implements ResourceAdapter {
 	private static final Method TCP_MESSAGE_INIT_METHOD;
 	private static final Method TCP_MESSAGE_DATA_METHOD;
 	private static final Method TCP_MESSAGE_DISCONNECT_METHOD;
+	private static final Method TCP_BATCH_INIT_METHOD;
+	private static final Method TCP_BATCH_DATA_METHOD;
+	private static final Method TCP_BATCH_DISCONNECT_METHOD;
+	private static final Method UDP_MESSAGE_INIT_METHOD;
+	private static final Method UDP_MESSAGE_DATA_METHOD;
+	private static final Method UDP_BATCH_INIT_METHOD;
+	private static final Method UDP_BATCH_DATA_METHOD;
+
+	private static final BiConsumer<MessageEndpoint, Void> TCP_MESSAGE_INIT
+		= (e, m) -> ((TCPMessageListener)e).initialized();
+	private static final BiConsumer<MessageEndpoint, TCPMessage> TCP_MESSAGE_DATA
+		= (e, m) -> ((TCPMessageListener)e).onMessage(m);
+	private static final BiConsumer<MessageEndpoint, TCPDisconnectionNotification> TCP_MESSAGE_DISCONNECT
+		= (e, m) -> ((TCPMessageListener)e).disconnected(m);
+	private static final BiConsumer<MessageEndpoint, Void> TCP_BATCH_INIT
+		= (e, m) -> ((TCPBatchMessageListener)e).initialized();
+	private static final BiConsumer<MessageEndpoint, List<TCPMessage>> TCP_BATCH_DATA
+		= (e, m) -> ((TCPBatchMessageListener)e).onMessages(m);
+	private static final BiConsumer<MessageEndpoint, TCPDisconnectionNotification> TCP_BATCH_DISCONNECT
+		= (e, m) -> ((TCPBatchMessageListener)e).disconnected(m);
+	private static final BiConsumer<MessageEndpoint, Void> UDP_MESSAGE_INIT
+		= (e, m) -> ((UDPMessageListener)e).initialized();
+	private static final BiConsumer<MessageEndpoint, UDPMessage> UDP_MESSAGE_DATA
+		= (e, m) -> ((UDPMessageListener)e).onMessage(m);
+	private static final BiConsumer<MessageEndpoint, Void> UDP_BATCH_INIT
+		= (e, m) -> ((UDPBatchMessageListener)e).initialized();
+	private static final BiConsumer<MessageEndpoint, List<UDPMessage>> UDP_BATCH_DATA
+		= (e, m) -> ((UDPBatchMessageListener)e).onMessages(m);
 
 	private volatile WorkManager workManager;
 
 	private final AtomicBoolean running = new AtomicBoolean(false);
-	private final ConcurrentHashMap<Long, TCPManagerStorage> tcpManagers = new ConcurrentHashMap<>();
+	// Modified under their own locks only
+	private final ClientMap<TCPManagerStorage> tcpManagers = new ClientMap<>();
+	private final ClientMap<UDPManagerStorage> udpManagers = new ClientMap<>();
 
 	@Getter
 	private final Validator validator;
@@ -81,6 +118,13 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		TCP_MESSAGE_INIT_METHOD = MethodUtils.getAccessibleMethod(TCPMessageListener.class, "initialized");
 		TCP_MESSAGE_DATA_METHOD = MethodUtils.getAccessibleMethod(TCPMessageListener.class, "onMessage", TCPMessage.class);
 		TCP_MESSAGE_DISCONNECT_METHOD = MethodUtils.getAccessibleMethod(TCPMessageListener.class, "disconnected", TCPDisconnectionNotification.class);
+		TCP_BATCH_INIT_METHOD = MethodUtils.getAccessibleMethod(TCPBatchMessageListener.class, "initialized");
+		TCP_BATCH_DATA_METHOD = MethodUtils.getAccessibleMethod(TCPBatchMessageListener.class, "onMessages", List.class);
+		TCP_BATCH_DISCONNECT_METHOD = MethodUtils.getAccessibleMethod(TCPBatchMessageListener.class, "disconnected", TCPDisconnectionNotification.class);
+		UDP_MESSAGE_INIT_METHOD = MethodUtils.getAccessibleMethod(UDPMessageListener.class, "initialized");
+		UDP_MESSAGE_DATA_METHOD = MethodUtils.getAccessibleMethod(UDPMessageListener.class, "onMessage", UDPMessage.class);
+		UDP_BATCH_INIT_METHOD = MethodUtils.getAccessibleMethod(UDPBatchMessageListener.class, "initialized");
+		UDP_BATCH_DATA_METHOD = MethodUtils.getAccessibleMethod(UDPBatchMessageListener.class, "onMessages", List.class);
 	}
 
 	public SocketResourceAdapter() throws IOException {
@@ -102,6 +146,7 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		log.info("Stopping Socket resource adapter");
 		this.running.set(false);
 		this.stopTCP();
+		this.stopUDP();
 		this.workManager = null;
 		log.info("Socket resource adapter is stopped");
 	}
@@ -112,12 +157,16 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		if (!this.running.get()) {
 			throw new ResourceException("This resource adapter is stopped");
 		}
-		if (!(spec instanceof TCPActivationSpec)) {
-			throw new NotSupportedException("Activation spec supplied has unsupported type " + spec.getClass().getCanonicalName());
-		} else {
+		if (spec instanceof TCPActivationSpec) {
 			log.info("Endpoint activation for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
 			this.activateTCP(endpointFactory, (TCPActivationSpec) spec);
 			log.info("Endpoint activated for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
+		} else if (spec instanceof UDPActivationSpec) {
+			log.info("UDP endpoint activation for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
+			this.activateUDP(endpointFactory, (UDPActivationSpec) spec);
+			log.info("UDP endpoint activated for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
+		} else {
+			throw new NotSupportedException("Activation spec supplied has unsupported type " + spec.getClass().getCanonicalName());
 		}
 	}
 
@@ -128,12 +177,16 @@ public class SocketResourceAdapter implements ResourceAdapter {
 			log.error("Endpoint deactivation called on disabled resource adapter");
 			return;
 		}
-		if (!(spec instanceof TCPActivationSpec)) {
-			log.error("Endpoint deactivation called with invalid ActivationSpec type");
-		} else {
+		if (spec instanceof TCPActivationSpec) {
 			log.info("Endpoint deactivation for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
 			this.deactivateTCP(endpointFactory, (TCPActivationSpec) spec);
 			log.info("Endpoint deactivated for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
+		} else if (spec instanceof UDPActivationSpec) {
+			log.info("UDP endpoint deactivation for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
+			this.deactivateUDP(endpointFactory, (UDPActivationSpec) spec);
+			log.info("UDP endpoint deactivated for class {0}", endpointFactory.getEndpointClass().getCanonicalName());
+		} else {
+			log.error("Endpoint deactivation called with invalid ActivationSpec type");
 		}
 	}
 
@@ -142,14 +195,57 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		return null;
 	}
 
-	public void notifyReceived(long clientId, long id, byte[] data, SocketAddress local, SocketAddress remote) {
-		TCPMessage message = new TCPMessageImpl(id, remote, local, data);
-		this.sendEndpoints(clientId, TCP_MESSAGE_DATA_METHOD, message);
+	/**
+	 * @return Whether there were regular endpoints to deliver the message to.
+	 */
+	public boolean notifyReceived(long clientId, TCPMessage message) {
+		TCPManagerStorage storage = this.getTCPStorage(clientId);
+		if (storage == null) {
+			return false;
+		}
+		EndpointPool[] endpoints = storage.endpoints();
+		this.sendEndpoints(endpoints, TCP_MESSAGE_DATA_METHOD, TCP_MESSAGE_DATA, message);
+		return endpoints.length != 0;
+	}
+
+	/**
+	 * @return Whether there were batch endpoints to deliver the messages to.
+	 */
+	public boolean notifyReceived(long clientId, List<TCPMessage> messages) {
+		TCPManagerStorage storage = this.getTCPStorage(clientId);
+		if (storage == null) {
+			return false;
+		}
+		EndpointPool[] endpoints = storage.batchEndpoints();
+		this.sendEndpoints(endpoints, TCP_BATCH_DATA_METHOD, TCP_BATCH_DATA, messages);
+		return endpoints.length != 0;
+	}
+
+	public void notifyShutdown(long clientId, long id, SocketAddress local, SocketAddress remote, Throwable cause, boolean reconnecting) {
+		TCPManagerStorage storage = this.getTCPStorage(clientId);
+		if (storage != null) {
+			TCPDisconnectionNotification notification = new TCPDisconnectionNotificationImpl(id, remote, local, cause, reconnecting);
+			this.sendEndpoints(storage.endpoints(), TCP_MESSAGE_DISCONNECT_METHOD, TCP_MESSAGE_DISCONNECT, notification);
+			this.sendEndpoints(storage.batchEndpoints(), TCP_BATCH_DISCONNECT_METHOD, TCP_BATCH_DISCONNECT, notification);
+		}
+	}
+
+	public void notifyReceived(long clientId, UDPMessage message) {
+		UDPManagerStorage storage = this.udpManagers.get(clientId);
+		if (storage != null) {
+			this.sendEndpoints(storage.endpoints(), UDP_MESSAGE_DATA_METHOD, UDP_MESSAGE_DATA, message);
+		} else {
+			log.trace("Datagram delivery requested for deactivated client");
+		}
 	}
 
-	public void notifyShutdown(long clientId, long id, SocketAddress local, SocketAddress remote, Throwable cause) {
-		TCPDisconnectionNotification notification = new TCPDisconnectionNotificationImpl(id, remote, local, cause);
-		this.sendEndpoints(clientId, TCP_MESSAGE_DISCONNECT_METHOD, notification);
+	public void notifyReceivedUDP(long clientId, List<UDPMessage> messages) {
+		UDPManagerStorage storage = this.udpManagers.get(clientId);
+		if (storage != null) {
+			this.sendEndpoints(storage.batchEndpoints(), UDP_BATCH_DATA_METHOD, UDP_BATCH_DATA, messages);
+		} else {
+			log.trace("Datagram delivery requested for deactivated client");
+		}
 	}
 
 	public long createTCPConnection(long clientId, InetSocketAddress target) throws ResourceException {
@@ -159,6 +255,19 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		return manager.connect(target);
 	}
 
+	public CompletionStage<Long> createTCPConnectionAsync(long clientId, InetSocketAddress target) throws ResourceException {
+		log.trace("TCP asynchronous connection creation requested for client ''{}'', address ''{}:{}''",
+				clientId, target.getHostString(), target.getPort());
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return manager.connectAsync(target);
+	}
+
+	public List<CompletionStage<Long>> createTCPConnections(long clientId, List<InetSocketAddress> targets) throws ResourceException {
+		log.trace("TCP connections creation requested for client ''{}'', {} addresses", clientId, targets.size());
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return new ArrayList<>(manager.connectAll(targets));
+	}
+
 	public long listenTCP(long clientId, InetSocketAddress local) throws ResourceException {
 		log.trace("TCP listening requested for client ''{}'', address ''{}:{}''",
 				clientId, local.getHostString(), local.getPort());
@@ -166,12 +275,54 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		return manager.listen(local);
 	}
 
+	public CompletionStage<Long> listenTCPAsync(long clientId, InetSocketAddress local) throws ResourceException {
+		log.trace("TCP asynchronous listening requested for client ''{}'', address ''{}:{}''",
+				clientId, local.getHostString(), local.getPort());
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return manager.listenAsync(local);
+	}
+
 	public void sendTCP(long clientId, long id, ByteBuffer data) throws ResourceException {
-		log.trace("TCP sending requested for client ''{}'', id ''{}''", clientId, id);
+		if (log.isTraceEnabled()) {
+			log.trace("TCP sending requested for client ''{}'', id ''{}''", clientId, id);
+		}
 		TCPManager manager = this.getTCPManagerChecked(clientId);
 		manager.send(id, data);
 	}
 
+	public void sendTCP(long clientId, long id, ByteBuffer... data) throws ResourceException {
+		if (log.isTraceEnabled()) {
+			log.trace("TCP sending requested for client ''{}'', id ''{}''", clientId, id);
+		}
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		manager.send(id, data);
+	}
+
+	public CompletionStage<Void> sendTCPAsync(long clientId, long id, ByteBuffer data) throws ResourceException {
+		if (log.isTraceEnabled()) {
+			log.trace("TCP asynchronous sending requested for client ''{}'', id ''{}''", clientId, id);
+		}
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return manager.sendAsync(id, data);
+	}
+
+	public CompletionStage<Void> sendTCPFile(long clientId, long id, Path file, long offset, long length) throws ResourceException {
+		log.trace("TCP file sending requested for client ''{}'', id ''{}'', file ''{}''", clientId, id, file);
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return manager.sendFile(id, file, offset, length);
+	}
+
+	public boolean isTCPWritable(long clientId, long id) throws ResourceException {
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return manager.isWritable(id);
+	}
+
+	public CompletionStage<Void> whenTCPWritable(long clientId, long id) throws ResourceException {
+		log.trace("TCP writability awaiting requested for client ''{}'', id ''{}''", clientId, id);
+		TCPManager manager = this.getTCPManagerChecked(clientId);
+		return manager.whenWritable(id);
+	}
+
 	public void closeTCPConnection(long clientId, long id) throws ResourceException {
 		log.trace("TCP closing requested for client ''{}'', id ''{}''", clientId, id);
 		TCPManager manager = this.getTCPManagerChecked(clientId);
@@ -186,6 +337,40 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		return result;
 	}
 
+	public long bindUDP(long clientId, InetSocketAddress local) throws ResourceException {
+		log.trace("UDP binding requested for client ''{}'', address ''{}:{}''",
+				clientId, local.getHostString(), local.getPort());
+		UDPManager manager = this.getUDPManagerChecked(clientId);
+		return manager.bind(local);
+	}
+
+	public void sendUDP(long clientId, long id, InetSocketAddress target, ByteBuffer data) throws ResourceException {
+		if (log.isTraceEnabled()) {
+			log.trace("UDP sending requested for client ''{}'', id ''{}''", clientId, id);
+		}
+		UDPManager manager = this.getUDPManagerChecked(clientId);
+		manager.sendTo(id, target, data);
+	}
+
+	public void sendUDP(long clientId, long id, InetSocketAddress target, List<ByteBuffer> data) throws ResourceException {
+		if (log.isTraceEnabled()) {
+			log.trace("UDP sending of {} datagrams requested for client ''{}'', id ''{}''", data.size(), clientId, id);
+		}
+		UDPManager manager = this.getUDPManagerChecked(clientId);
+		manager.sendTo(id, target, data);
+	}
+
+	public void closeUDPConnection(long clientId, long id) throws ResourceException {
+		log.trace("UDP closing requested for client ''{}'', id ''{}''", clientId, id);
+		UDPManager manager = this.getUDPManagerChecked(clientId);
+		manager.close(id);
+	}
+
+	public boolean isUDPOpen(long clientId, long id) throws ResourceException {
+		UDPManager manager = this.getUDPManagerChecked(clientId);
+		return manager.isOpen(id);
+	}
+
 	@Override
 	public int hashCode() {
 		return super.hashCode();
@@ -198,23 +383,31 @@ public class SocketResourceAdapter implements ResourceAdapter {
 
 	private void activateTCP(final MessageEndpointFactory factory, TCPActivationSpec spec) throws ResourceException {
 		long id = spec.getClientId();
+		boolean batch = TCPBatchMessageListener.class.isAssignableFrom(factory.getEndpointClass());
+		EndpointPool pool;
 		log.trace("TCP activation for client ''{}'': before lock", id);
 		synchronized (this.tcpManagers) {
 			log.trace("TCP activation for client ''{}'': after lock", id);
-			TCPManagerStorage newStorage = new TCPManagerStorage();
-			TCPManagerStorage storage = this.tcpManagers.putIfAbsent(id, newStorage);
+			TCPManagerStorage storage = this.tcpManagers.get(id);
 			if (storage == null) {
 				log.trace("TCP activation for client ''{}'': storage not found, inserting new", id);
-				TCPManager manager = new TCPManager(this, id, spec);
-				newStorage.setManager(manager);
-				newStorage.setSpec(spec);
-				newStorage.addEndpoint(factory);
+				TCPManager manager = new TCPManager(this, id, spec, this::scheduleDelivery);
+				storage = new TCPManagerStorage();
+				storage.setManager(manager);
+				storage.setSpec(spec);
+				pool = storage.addEndpoint(factory, batch, spec.getEndpointPoolSize());
+				this.tcpManagers.put(id, storage);
 			} else {
 				log.trace("TCP activation for client ''{}'': storage not found, adding factory", id);
-				storage.addEndpoint(factory);
+				pool = storage.addEndpoint(factory, batch, spec.getEndpointPoolSize());
 			}
+			storage.getManager().setBatchDelivery(storage.hasBatchEndpoints());
+		}
+		if (batch) {
+			this.workManager.scheduleWork(new SimpleWork(() -> pool.deliver(TCP_BATCH_INIT_METHOD, TCP_BATCH_INIT, null)));
+		} else {
+			this.workManager.scheduleWork(new SimpleWork(() -> pool.deliver(TCP_MESSAGE_INIT_METHOD, TCP_MESSAGE_INIT, null)));
 		}
-		this.workManager.scheduleWork(new SimpleWork(() -> this.sendEndpoint(factory, TCP_MESSAGE_INIT_METHOD, null)));
 		log.trace("TCP activation for client ''{}'': initialization callback is scheduled", id);
 	}
 
@@ -225,9 +418,11 @@ public class SocketResourceAdapter implements ResourceAdapter {
 			log.trace("TCP deactivation for client ''{}'': after lock", id);
 			TCPManagerStorage storage = this.tcpManagers.get(id);
 			storage.removeEndpoint(factory);
+			storage.getManager().setBatchDelivery(storage.hasBatchEndpoints());
 			if (storage.isEmpty()) {
 				log.trace("TCP deactivation for client ''{}'': storage is empty, removing", id);
 				this.tcpManagers.remove(id);
+				storage.close();
 				TCPManager manager = storage.getManager();
 				if (manager != null) {
 					log.trace("TCP deactivation for client ''{}'': manager is created, closing", id);
@@ -243,66 +438,106 @@ public class SocketResourceAdapter implements ResourceAdapter {
 		log.trace("TCP stopping: before lock");
 		synchronized (this.tcpManagers) {
 			log.trace("TCP stopping: after lock");
-			Iterator<Map.Entry<Long, TCPManagerStorage>> iter = this.tcpManagers.entrySet().iterator();
-			while (iter.hasNext()) {
-				TCPManagerStorage s = iter.next().getValue();
+			for (TCPManagerStorage s : this.tcpManagers.values()) {
+				s.close();
 				TCPManager manager = s.getManager();
 				if (manager != null) {
 					manager.close();
 				}
-				iter.remove();
 			}
+			this.tcpManagers.clear();
 		}
 		log.trace("TCP stopping: stopped");
 	}
 
-	private TCPManager getTCPManager(long clientId) {
-		TCPManagerStorage s = this.tcpManagers.get(clientId);
-		if (s == null) {
-			log.trace("TCP manager request: not found");
-			return null;
+	private void activateUDP(MessageEndpointFactory factory, UDPActivationSpec spec) throws ResourceException {
+		long id = spec.getClientId();
+		boolean batch = UDPBatchMessageListener.class.isAssignableFrom(factory.getEndpointClass());
+		EndpointPool pool;
+		synchronized (this.udpManagers) {
+			UDPManagerStorage storage = this.udpManagers.get(id);
+			if (storage == null) {
+				log.trace("UDP activation for client ''{}'': storage not found, inserting new", id);
+				storage = new UDPManagerStorage();
+				storage.setManager(new UDPManager(this, id, spec));
+				storage.setSpec(spec);
+				this.udpManagers.put(id, storage);
+			}
+			pool = storage.addEndpoint(factory, batch, spec.getEndpointPoolSize());
+			storage.getManager().setBatchDelivery(storage.hasBatchEndpoints());
+		}
+		if (batch) {
+			this.workManager.scheduleWork(new SimpleWork(() -> pool.deliver(UDP_BATCH_INIT_METHOD, UDP_BATCH_INIT, null)));
 		} else {
-			log.trace("TCP manager request: found");
-			return s.getManager();
+			this.workManager.scheduleWork(new SimpleWork(() -> pool.deliver(UDP_MESSAGE_INIT_METHOD, UDP_MESSAGE_INIT, null)));
 		}
+		log.trace("UDP activation for client ''{}'': initialization callback is scheduled", id);
 	}
 
-	private <T> void sendEndpoints(long clientId, Method target, T message) {
-		TCPManagerStorage storage = this.tcpManagers.get(clientId);
-		if (storage == null) {
-			log.trace("Message sending requested for deactivated client");
-			return;
+	private void deactivateUDP(MessageEndpointFactory factory, UDPActivationSpec spec) {
+		long id = spec.getClientId();
+		synchronized (this.udpManagers) {
+			UDPManagerStorage storage = this.udpManagers.get(id);
+			if (storage == null) {
+				log.error("UDP deactivation for unknown client ''{}''", id);
+				return;
+			}
+			storage.removeEndpoint(factory);
+			storage.getManager().setBatchDelivery(storage.hasBatchEndpoints());
+			if (storage.isEmpty()) {
+				log.trace("UDP deactivation for client ''{}'': storage is empty, removing", id);
+				this.udpManagers.remove(id);
+				storage.close();
+				storage.getManager().close();
+			}
 		}
+	}
 
-		Iterable<MessageEndpointFactory> endpoints = storage.endpoints();
-		for (MessageEndpointFactory factory : endpoints) {
-			this.sendEndpoint(factory, target, message);
+	private void stopUDP() {
+		synchronized (this.udpManagers) {
+			for (UDPManagerStorage s : this.udpManagers.values()) {
+				s.close();
+				s.getManager().close();
+			}
+			this.udpManagers.clear();
 		}
+		log.trace("UDP stopping: stopped");
 	}
 
-	private <T> void sendEndpoint(MessageEndpointFactory factory, Method target, T message) {
+	private void scheduleDelivery(Runnable task) {
+		WorkManager local = this.workManager;
+		if (local == null) {
+			throw new RejectedExecutionException("Resource adapter is stopped");
+		}
 		try {
-			MessageEndpoint endpoint = factory.createEndpoint(null);
-			endpoint.beforeDelivery(target);
-			try {
-				log.trace("Sending endpoint message to ''{}'': prepare", target.getName());
+			local.scheduleWork(new SimpleWork(task));
+		} catch (WorkException e) {
+			throw new RejectedExecutionException("Delivery work is rejected", e);
+		}
+	}
 
-				if (message == null) {
-					target.invoke(endpoint);
-				} else {
-					target.invoke(endpoint, message);
-				}
+	private TCPManagerStorage getTCPStorage(long clientId) {
+		TCPManagerStorage storage = this.tcpManagers.get(clientId);
+		if (storage == null) {
+			log.trace("Message sending requested for deactivated client");
+		}
+		return storage;
+	}
 
-				log.trace("Sending endpoint message to ''{}'': sent", target.getName());
-			} catch (IllegalAccessException | InvocationTargetException e) {
-				log.error("Exception on message endpoint invocation", e);
-			}
-			endpoint.afterDelivery();
-			endpoint.release();
-		} catch (UnavailableException e) {
-			log.error("Message endpoint is unavailable", e);
-		} catch (ResourceException | NoSuchMethodException e) {
-			log.error("Exception on message endpoint processing", e);
+	private TCPManager getTCPManager(long clientId) {
+		TCPManagerStorage s = this.tcpManagers.get(clientId);
+		if (s == null) {
+			log.trace("TCP manager request: not found");
+			return null;
+		} else {
+			log.trace("TCP manager request: found");
+			return s.getManager();
+		}
+	}
+
+	private <T> void sendEndpoints(EndpointPool[] endpoints, Method target, BiConsumer<MessageEndpoint, T> invocation, T message) {
+		for (EndpointPool pool : endpoints) {
+			pool.deliver(target, invocation, message);
 		}
 	}
 
@@ -314,4 +549,12 @@ public class SocketResourceAdapter implements ResourceAdapter {
 			return m;
 		}
 	}
+
+	private UDPManager getUDPManagerChecked(long clientId) throws UnknownClientException {
+		UDPManagerStorage s = this.udpManagers.get(clientId);
+		if (s == null) {
+			throw new UnknownClientException();
+		}
+		return s.getManager();
+	}
 }
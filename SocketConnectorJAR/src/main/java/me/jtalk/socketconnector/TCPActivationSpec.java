@@ -17,7 +17,11 @@
 
 package me.jtalk.socketconnector;
 
+import me.jtalk.socketconnector.api.TCPBatchMessageListener;
 import me.jtalk.socketconnector.api.TCPMessageListener;
+import me.jtalk.socketconnector.io.Allocators;
+import me.jtalk.socketconnector.io.Framing;
+import me.jtalk.socketconnector.io.Transport;
 import javax.resource.spi.Activation;
 import javax.resource.spi.ActivationSpec;
 import javax.resource.spi.ConfigProperty;
@@ -28,7 +32,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-@Activation(messageListeners = {TCPMessageListener.class})
+@Activation(messageListeners = {TCPMessageListener.class, TCPBatchMessageListener.class})
 public class TCPActivationSpec implements ActivationSpec {
 
 	private volatile ResourceAdapter resourceAdapter;
@@ -66,8 +70,298 @@ public class TCPActivationSpec implements ActivationSpec {
 	)
 	private Integer backlog;
 
+	@ConfigProperty(
+		description = "Socket transport: auto, epoll, io_uring or nio. Native transports are used "
+			+ "only when available on the host, NIO is used otherwise",
+		defaultValue = Transport.AUTO
+	)
+	private String transport;
+
+	@ConfigProperty(
+		description = "Bind every listening socket once per listener thread with SO_REUSEPORT, so that "
+			+ "the kernel spreads incoming connections across threads. Only supported by native transports",
+		defaultValue = "false"
+	)
+	private Boolean reusePort;
+
+	@ConfigProperty(
+		description = "Deliver inbound data as read-only views of pooled receive buffers "
+			+ "instead of byte array copies. Views are only valid until onMessage returns",
+		defaultValue = "false"
+	)
+	private Boolean zeroCopyReceive;
+
+	@ConfigProperty(
+		description = "Reuse message objects delivered with zeroCopyReceive for later reads. "
+			+ "Messages must not be kept after onMessage returns then. Ignored without zeroCopyReceive",
+		defaultValue = "false"
+	)
+	private Boolean recycleMessages;
+
+	@ConfigProperty(
+		description = "Buffer allocator: pooled or unpooled. One allocator instance "
+			+ "is shared by all connections of a clientId",
+		defaultValue = Allocators.POOLED
+	)
+	private String allocator;
+
+	@ConfigProperty(
+		description = "Whether I/O buffers should be allocated in direct memory",
+		defaultValue = "true"
+	)
+	private Boolean preferDirect;
+
+	@ConfigProperty(
+		description = "Pooled allocator arenas count for both heap and direct memory, "
+			+ "0 for Netty's default",
+		defaultValue = "0"
+	)
+	private Integer allocatorArenas;
+
+	@ConfigProperty(
+		description = "Pooled allocator chunk size in bytes: a power of two not less "
+			+ "than the page size, 0 for Netty's default",
+		defaultValue = "0"
+	)
+	private Integer allocatorChunkSize;
+
+	@ConfigProperty(
+		description = "Inbound frame decoding: none, length, delimiter, fixed or line. "
+			+ "With framing enabled each message delivered contains exactly one frame",
+		defaultValue = "none"
+	)
+	private String framing;
+
+	@ConfigProperty(
+		description = "Maximum frame length for length, delimiter and line framing",
+		defaultValue = "65536"
+	)
+	private Integer frameMaxLength;
+
+	@ConfigProperty(
+		description = "Length field offset for length framing",
+		defaultValue = "0"
+	)
+	private Integer frameLengthFieldOffset;
+
+	@ConfigProperty(
+		description = "Length field size for length framing: 1, 2, 3, 4 or 8 bytes",
+		defaultValue = "4"
+	)
+	private Integer frameLengthFieldLength;
+
+	@ConfigProperty(
+		description = "Value to add to the length field to get the rest of the frame length "
+			+ "for length framing",
+		defaultValue = "0"
+	)
+	private Integer frameLengthAdjustment;
+
+	@ConfigProperty(
+		description = "Number of leading bytes to strip from each frame for length framing",
+		defaultValue = "0"
+	)
+	private Integer frameBytesToStrip;
+
+	@ConfigProperty(
+		description = "Hex-encoded frame delimiter for delimiter framing",
+		defaultValue = "00"
+	)
+	private String frameDelimiter;
+
+	@ConfigProperty(
+		description = "Frame length for fixed framing",
+		defaultValue = "0"
+	)
+	private Integer frameFixedLength;
+
+	@ConfigProperty(
+		description = "Maximum number of messages delivered to TCPBatchMessageListener at once",
+		defaultValue = "64"
+	)
+	private Integer batchSize;
+
+	@ConfigProperty(
+		description = "Maximum time in milliseconds a message waits for its batch to fill "
+			+ "before being delivered to TCPBatchMessageListener",
+		defaultValue = "1"
+	)
+	private Integer batchLinger;
+
+	@ConfigProperty(
+		description = "Number of idle message endpoints kept for reuse, 0 to create "
+			+ "a new endpoint for every delivery",
+		defaultValue = "8"
+	)
+	private Integer endpointPoolSize;
+
+	@ConfigProperty(
+		description = "Deliver inbound messages on WorkManager threads instead of I/O threads. "
+			+ "Messages of each connection are still delivered serially and in order",
+		defaultValue = "false"
+	)
+	private Boolean offloadDelivery;
+
+	@ConfigProperty(
+		description = "Number of undelivered messages per connection at which reading from "
+			+ "the connection is suspended if delivery is offloaded",
+		defaultValue = "1024"
+	)
+	private Integer deliveryQueueDepth;
+
+	@ConfigProperty(
+		description = "Whether writes from different threads to a connection are queued and "
+			+ "flushed together on its event loop",
+		defaultValue = "false"
+	)
+	private Boolean coalesceWrites;
+
+	@ConfigProperty(
+		description = "Maximum number of writes queued per connection if writes are coalesced",
+		defaultValue = "1024"
+	)
+	private Integer writeQueueCapacity;
+
+	@ConfigProperty(
+		description = "Outbound bytes queued per connection at which it becomes unwritable",
+		defaultValue = "65536"
+	)
+	private Integer writeBufferHighWaterMark;
+
+	@ConfigProperty(
+		description = "Outbound bytes queued per connection below which an unwritable "
+			+ "connection becomes writable again",
+		defaultValue = "32768"
+	)
+	private Integer writeBufferLowWaterMark;
+
+	@ConfigProperty(
+		description = "Time in milliseconds a connection attempt may take before it fails",
+		defaultValue = "30000"
+	)
+	private Integer connectTimeout;
+
+	@ConfigProperty(
+		description = "Maximum number of connection attempts in progress at once when "
+			+ "connecting to several targets with connectAll",
+		defaultValue = "64"
+	)
+	private Integer connectConcurrency;
+
+	@ConfigProperty(
+		description = "Redial outbound connections whose link drops, keeping their IDs",
+		defaultValue = "false"
+	)
+	private Boolean reconnect;
+
+	@ConfigProperty(
+		description = "Initial delay in milliseconds before redialing a dropped connection, "
+			+ "doubled with every failed attempt",
+		defaultValue = "100"
+	)
+	private Integer reconnectDelay;
+
+	@ConfigProperty(
+		description = "Maximum delay in milliseconds between redial attempts",
+		defaultValue = "30000"
+	)
+	private Integer reconnectMaxDelay;
+
+	@ConfigProperty(
+		description = "Maximum number of redials in progress at once",
+		defaultValue = "8"
+	)
+	private Integer reconnectConcurrency;
+
 	@Override
 	public void validate() throws InvalidPropertyException {
-		// Nothing to validate here
+		if (!Transport.isKnown(this.transport)) {
+			throw new InvalidPropertyException("Unknown transport " + this.transport);
+		}
+		if (!Allocators.isKnown(this.allocator)) {
+			throw new InvalidPropertyException("Unknown allocator " + this.allocator);
+		}
+		if (this.allocatorArenas != null && this.allocatorArenas < 0) {
+			throw new InvalidPropertyException("Allocator arenas count must not be negative");
+		}
+		if (this.allocatorChunkSize != null && !Allocators.isValidChunkSize(this.allocatorChunkSize)) {
+			throw new InvalidPropertyException("Invalid allocator chunk size " + this.allocatorChunkSize);
+		}
+		if (this.batchSize != null && this.batchSize < 1) {
+			throw new InvalidPropertyException("Batch size must be positive");
+		}
+		if (this.batchLinger != null && this.batchLinger < 0) {
+			throw new InvalidPropertyException("Batch linger must not be negative");
+		}
+		if (this.endpointPoolSize != null && this.endpointPoolSize < 0) {
+			throw new InvalidPropertyException("Endpoint pool size must not be negative");
+		}
+		if (this.deliveryQueueDepth != null && this.deliveryQueueDepth < 1) {
+			throw new InvalidPropertyException("Delivery queue depth must be positive");
+		}
+		if (this.writeQueueCapacity != null && this.writeQueueCapacity < 1) {
+			throw new InvalidPropertyException("Write queue capacity must be positive");
+		}
+		if (this.writeBufferLowWaterMark != null && this.writeBufferHighWaterMark != null
+			&& (this.writeBufferLowWaterMark < 0 || this.writeBufferLowWaterMark > this.writeBufferHighWaterMark)) {
+			throw new InvalidPropertyException("Write buffer water marks must satisfy 0 <= low <= high");
+		}
+		if (this.connectTimeout != null && this.connectTimeout < 1) {
+			throw new InvalidPropertyException("Connect timeout must be positive");
+		}
+		if (this.connectConcurrency != null && this.connectConcurrency < 1) {
+			throw new InvalidPropertyException("Connect concurrency must be positive");
+		}
+		if (this.reconnectDelay != null && this.reconnectDelay < 1) {
+			throw new InvalidPropertyException("Reconnect delay must be positive");
+		}
+		if (this.reconnectDelay != null && this.reconnectMaxDelay != null && this.reconnectMaxDelay < this.reconnectDelay) {
+			throw new InvalidPropertyException("Reconnect maximum delay must not be less than reconnect delay");
+		}
+		if (this.reconnectConcurrency != null && this.reconnectConcurrency < 1) {
+			throw new InvalidPropertyException("Reconnect concurrency must be positive");
+		}
+		this.validateFraming();
+	}
+
+	private void validateFraming() throws InvalidPropertyException {
+		if (!Framing.isKnown(this.framing)) {
+			throw new InvalidPropertyException("Unknown framing " + this.framing);
+		}
+		switch (Framing.forName(this.framing)) {
+			case LENGTH:
+				requireSet(this.frameMaxLength, "Maximum frame length");
+				requireSet(this.frameLengthFieldOffset, "Frame length field offset");
+				requireSet(this.frameLengthAdjustment, "Frame length adjustment");
+				requireSet(this.frameBytesToStrip, "Frame bytes to strip");
+				int size = requireSet(this.frameLengthFieldLength, "Frame length field size");
+				if (size != 1 && size != 2 && size != 3 && size != 4 && size != 8) {
+					throw new InvalidPropertyException("Unsupported frame length field size " + size);
+				}
+				break;
+			case DELIMITER:
+				requireSet(this.frameMaxLength, "Maximum frame length");
+				if (!Framing.isValidDelimiter(this.frameDelimiter)) {
+					throw new InvalidPropertyException("Frame delimiter must be a non-empty hex string");
+				}
+				break;
+			case FIXED:
+				if (requireSet(this.frameFixedLength, "Fixed frame length") <= 0) {
+					throw new InvalidPropertyException("Fixed frame length must be positive");
+				}
+				break;
+			case LINE:
+				requireSet(this.frameMaxLength, "Maximum frame length");
+				break;
+			default:
+				break;
+		}
+	}
+
+	private static int requireSet(Integer value, String name) throws InvalidPropertyException {
+		if (value == null) {
+			throw new InvalidPropertyException(name + " must be set for the framing chosen");
+		}
+		return value;
 	}
 }
@@ -20,10 +20,13 @@ package me.jtalk.socketconnector;
 import me.jtalk.socketconnector.api.TCPConnectionFactory;
 import me.jtalk.socketconnector.api.TCPConnection;
 import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 import javax.naming.NamingException;
 import javax.naming.Reference;
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionManager;
+import me.jtalk.socketconnector.utils.ValidationUtils;
 
 public class TCPConnectionFactoryImpl implements TCPConnectionFactory {
 
@@ -54,6 +57,26 @@ public class TCPConnectionFactoryImpl implements TCPConnectionFactory {
 		return safePerform(() -> (TCPConnection)this.manager.allocateConnection(this.parent, new NewTCPConnectionRequest(uid, address, true)));
 	}
 
+	@Override
+	public CompletionStage<Long> createConnectionAsync(long uid, InetSocketAddress target) throws ResourceException {
+		this.validate(new NewTCPConnectionRequest(uid, target, false));
+		return this.parent.getResourceAdapter().createTCPConnectionAsync(uid, target);
+	}
+
+	@Override
+	public List<CompletionStage<Long>> connectAll(long uid, List<InetSocketAddress> targets) throws ResourceException {
+		for (InetSocketAddress target : targets) {
+			this.validate(new NewTCPConnectionRequest(uid, target, false));
+		}
+		return this.parent.getResourceAdapter().createTCPConnections(uid, targets);
+	}
+
+	@Override
+	public CompletionStage<Long> listenAsync(long uid, InetSocketAddress address) throws ResourceException {
+		this.validate(new NewTCPConnectionRequest(uid, address, true));
+		return this.parent.getResourceAdapter().listenTCPAsync(uid, address);
+	}
+
 	@Override
 	public Reference getReference() throws NamingException {
 		return this.jndiReference;
@@ -64,6 +87,11 @@ public class TCPConnectionFactoryImpl implements TCPConnectionFactory {
 		this.jndiReference = reference;
 	}
 
+	private void validate(NewTCPConnectionRequest request) throws ResourceException {
+		SocketResourceAdapter adapter = this.parent.getResourceAdapter();
+		ValidationUtils.validateInfo(adapter.getValidator(), this.parent::printLog, request);
+	}
+
 	private static TCPConnection safePerform(ConnectionSupplier s) throws ResourceException {
 		try {
 			return s.get();
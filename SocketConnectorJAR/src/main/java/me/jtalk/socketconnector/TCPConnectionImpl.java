@@ -18,8 +18,10 @@ package me.jtalk.socketconnector;
 
 import me.jtalk.socketconnector.api.TCPConnection;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 import javax.resource.ResourceException;
 import lombok.extern.slf4j.Slf4j;
 import static me.jtalk.socketconnector.utils.LazyLoggingUtils.*;
@@ -45,15 +47,48 @@ public class TCPConnectionImpl implements TCPConnection, NamedIdObject {
 
 	@Override
 	public void send(ByteBuffer message) throws ResourceException {
-		ManagedTCPConnectionProxy local = this.owner;
-		if (local == null) {
-			lazyTrace(log, "Data will not be sent through {}: the connection is detached", this::getName);
-			throw new ResourceException("Connection is detached");
+		ManagedTCPConnectionProxy local = getOwnerChecked();
+		if (log.isTraceEnabled()) {
+			log.trace("Data will be sent through {}", this.getName());
+		}
+		local.send(message);
+	}
+
+	@Override
+	public void send(ByteBuffer... message) throws ResourceException {
+		ManagedTCPConnectionProxy local = getOwnerChecked();
+		if (log.isTraceEnabled()) {
+			log.trace("Data will be sent through {} from {} buffers", this.getName(), message.length);
 		}
-		lazyTrace(log, "Data will be sent through {}", this::getName);
 		local.send(message);
 	}
 
+	@Override
+	public CompletionStage<Void> sendAsync(ByteBuffer message) throws ResourceException {
+		ManagedTCPConnectionProxy local = getOwnerChecked();
+		if (log.isTraceEnabled()) {
+			log.trace("Data will be sent asynchronously through {}", this.getName());
+		}
+		return local.sendAsync(message);
+	}
+
+	@Override
+	public CompletionStage<Void> sendFile(Path file, long offset, long length) throws ResourceException {
+		ManagedTCPConnectionProxy local = getOwnerChecked();
+		lazyTrace(log, "File will be sent through {}", this::getName);
+		return local.sendFile(file, offset, length);
+	}
+
+	@Override
+	public boolean isWritable() throws ResourceException {
+		return getOwnerChecked().isWritable();
+	}
+
+	@Override
+	public CompletionStage<Void> whenWritable() throws ResourceException {
+		return getOwnerChecked().whenWritable();
+	}
+
 	@Override
 	public void disconnect() throws ResourceException {
 		ManagedTCPConnectionProxy local = this.owner;
@@ -89,6 +124,15 @@ public class TCPConnectionImpl implements TCPConnection, NamedIdObject {
 		this.owner = null;
 	}
 
+	private ManagedTCPConnectionProxy getOwnerChecked() throws ResourceException {
+		ManagedTCPConnectionProxy local = this.owner;
+		if (local == null) {
+			lazyTrace(log, "Request rejected for {}: the connection is detached", this::getName);
+			throw new ResourceException("Connection is detached");
+		}
+		return local;
+	}
+
 	private Optional<Long> getIdInternal() {
 		ManagedTCPConnectionProxy local = this.owner;
 		if (local == null) {
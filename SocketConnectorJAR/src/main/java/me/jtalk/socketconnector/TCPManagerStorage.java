@@ -17,17 +17,23 @@
 
 package me.jtalk.socketconnector;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import javax.resource.spi.endpoint.MessageEndpointFactory;
 import me.jtalk.socketconnector.io.TCPManager;
 
 public class TCPManagerStorage {
 
+	private static final EndpointPool[] NO_ENDPOINTS = new EndpointPool[0];
+
 	private TCPManager manager;
 	private TCPActivationSpec spec;
-	private final Set<MessageEndpointFactory> factories = Collections.newSetFromMap(new ConcurrentHashMap<MessageEndpointFactory, Boolean>());
+
+	// Copy-on-write snapshots: endpoints change on (de)activation only,
+	// while they are iterated on every message
+	private volatile EndpointPool[] endpoints = NO_ENDPOINTS;
+	private volatile EndpointPool[] batchEndpoints = NO_ENDPOINTS;
 
 	public TCPManager getManager() {
 		return manager;
@@ -45,19 +51,63 @@ public class TCPManagerStorage {
 		this.spec = spec;
 	}
 
-	public void addEndpoint(MessageEndpointFactory factory) {
-		this.factories.add(factory);
+	public synchronized EndpointPool addEndpoint(MessageEndpointFactory factory, boolean batch, int poolSize) {
+		EndpointPool pool = new EndpointPool(factory, batch, poolSize);
+		if (batch) {
+			this.batchEndpoints = append(this.batchEndpoints, pool);
+		} else {
+			this.endpoints = append(this.endpoints, pool);
+		}
+		return pool;
 	}
 
-	public void removeEndpoint(MessageEndpointFactory factory) {
-		this.factories.remove(factory);
+	public synchronized void removeEndpoint(MessageEndpointFactory factory) {
+		this.endpoints = remove(this.endpoints, factory);
+		this.batchEndpoints = remove(this.batchEndpoints, factory);
 	}
 
 	public boolean isEmpty() {
-		return this.factories.isEmpty();
+		return this.endpoints.length == 0 && this.batchEndpoints.length == 0;
+	}
+
+	public boolean hasBatchEndpoints() {
+		return this.batchEndpoints.length != 0;
+	}
+
+	public EndpointPool[] endpoints() {
+		return this.endpoints;
+	}
+
+	public EndpointPool[] batchEndpoints() {
+		return this.batchEndpoints;
+	}
+
+	public synchronized void close() {
+		for (EndpointPool pool : this.endpoints) {
+			pool.close();
+		}
+		for (EndpointPool pool : this.batchEndpoints) {
+			pool.close();
+		}
+		this.endpoints = NO_ENDPOINTS;
+		this.batchEndpoints = NO_ENDPOINTS;
+	}
+
+	private static EndpointPool[] append(EndpointPool[] pools, EndpointPool pool) {
+		EndpointPool[] result = Arrays.copyOf(pools, pools.length + 1);
+		result[pools.length] = pool;
+		return result;
 	}
 
-	public Iterable<MessageEndpointFactory> endpoints() {
-		return this.factories;
+	private static EndpointPool[] remove(EndpointPool[] pools, MessageEndpointFactory factory) {
+		List<EndpointPool> result = new ArrayList<>(pools.length);
+		for (EndpointPool pool : pools) {
+			if (pool.getFactory().equals(factory)) {
+				pool.close();
+			} else {
+				result.add(pool);
+			}
+		}
+		return result.toArray(NO_ENDPOINTS);
 	}
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import me.jtalk.socketconnector.api.UDPBatchMessageListener;
+import me.jtalk.socketconnector.api.UDPMessageListener;
+import me.jtalk.socketconnector.io.Allocators;
+import me.jtalk.socketconnector.io.MulticastGroups;
+import me.jtalk.socketconnector.io.Transport;
+import javax.resource.spi.Activation;
+import javax.resource.spi.ActivationSpec;
+import javax.resource.spi.ConfigProperty;
+import javax.resource.spi.InvalidPropertyException;
+import javax.resource.spi.ResourceAdapter;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Activation(messageListeners = {UDPMessageListener.class, UDPBatchMessageListener.class})
+public class UDPActivationSpec implements ActivationSpec {
+
+	private volatile ResourceAdapter resourceAdapter;
+
+	@ConfigProperty(
+		description = "Unique socket pool identifier. This value is used "
+			+ "to distinguish different AS applications using same Resource Adapter. "
+			+ "Application must use unique identifier for all created Connections "
+			+ "and all MessageListeners. Once last MessageListener with this identifier "
+			+ "is undeployed, all its sockets will be closed as well."
+	)
+	private Long clientId;
+
+	@ConfigProperty(
+		description = "Socket receiver threads count",
+		defaultValue = "2"
+	)
+	private Integer receiverThreadsCount;
+
+	@ConfigProperty(
+		description = "Socket transport: auto, epoll, io_uring or nio. Native transports are used "
+			+ "only when available on the host, NIO is used otherwise",
+		defaultValue = Transport.AUTO
+	)
+	private String transport;
+
+	@ConfigProperty(
+		description = "Bind every socket once per receiver thread with SO_REUSEPORT, so that "
+			+ "the kernel spreads datagrams across threads. Only supported by native transports",
+		defaultValue = "false"
+	)
+	private Boolean reusePort;
+
+	@ConfigProperty(
+		description = "Use UDP segmentation offload for bulk sending and generic receive offload "
+			+ "for receiving, so that a single syscall moves many datagrams. Only supported "
+			+ "by epoll transport on Linux 4.18 and newer",
+		defaultValue = "false"
+	)
+	private Boolean segmentationOffload;
+
+	@ConfigProperty(
+		description = "Buffer allocator: pooled or unpooled. One allocator instance "
+			+ "is shared by all sockets of a clientId",
+		defaultValue = Allocators.POOLED
+	)
+	private String allocator;
+
+	@ConfigProperty(
+		description = "Whether I/O buffers should be allocated in direct memory",
+		defaultValue = "true"
+	)
+	private Boolean preferDirect;
+
+	@ConfigProperty(
+		description = "Maximum datagram size in bytes, longer datagrams are truncated",
+		defaultValue = "2048"
+	)
+	private Integer maxDatagramSize;
+
+	@ConfigProperty(
+		description = "Socket receive buffer size (SO_RCVBUF) in bytes, 0 for the system default",
+		defaultValue = "0"
+	)
+	private Integer receiveBufferSize;
+
+	@ConfigProperty(
+		description = "Number of idle message endpoints kept for reuse, 0 to create "
+			+ "a new endpoint for every delivery",
+		defaultValue = "8"
+	)
+	private Integer endpointPoolSize;
+
+	@ConfigProperty(
+		description = "Comma-separated multicast groups to join while this clientId has endpoints "
+			+ "deployed. All groups are joined through a single socket",
+		defaultValue = ""
+	)
+	private String multicastGroups;
+
+	@ConfigProperty(
+		description = "Port to receive multicast datagrams on, required if multicast groups are set",
+		defaultValue = "0"
+	)
+	private Integer multicastPort;
+
+	@ConfigProperty(
+		description = "Network interface name to join multicast groups on, empty for the first one "
+			+ "that is up and supports multicast",
+		defaultValue = ""
+	)
+	private String multicastInterface;
+
+	@ConfigProperty(
+		description = "Offset of a big-endian sequence number in multicast datagrams, used to count "
+			+ "gaps per group. Negative value disables gap tracking",
+		defaultValue = "-1"
+	)
+	private Integer sequenceOffset;
+
+	@ConfigProperty(
+		description = "Length of the multicast sequence number in bytes: 4 or 8",
+		defaultValue = "4"
+	)
+	private Integer sequenceLength;
+
+	@Override
+	public void validate() throws InvalidPropertyException {
+		if (!Transport.isKnown(this.transport)) {
+			throw new InvalidPropertyException("Unknown transport " + this.transport);
+		}
+		if (!Allocators.isKnown(this.allocator)) {
+			throw new InvalidPropertyException("Unknown allocator " + this.allocator);
+		}
+		if (this.maxDatagramSize != null && (this.maxDatagramSize < 1 || this.maxDatagramSize > 65535)) {
+			throw new InvalidPropertyException("Maximum datagram size must be within 1 to 65535");
+		}
+		if (this.receiveBufferSize != null && this.receiveBufferSize < 0) {
+			throw new InvalidPropertyException("Receive buffer size must not be negative");
+		}
+		if (this.endpointPoolSize != null && this.endpointPoolSize < 0) {
+			throw new InvalidPropertyException("Endpoint pool size must not be negative");
+		}
+		try {
+			if (!MulticastGroups.parse(this.multicastGroups).isEmpty()) {
+				if (this.multicastPort == null || this.multicastPort < 1 || this.multicastPort > 65535) {
+					throw new InvalidPropertyException("Multicast port must be within 1 to 65535");
+				}
+				MulticastGroups.networkInterface(this.multicastInterface);
+			}
+		} catch (IllegalArgumentException e) {
+			throw new InvalidPropertyException(e.getMessage());
+		}
+		if (this.sequenceLength != null && this.sequenceLength != 4 && this.sequenceLength != 8) {
+			throw new InvalidPropertyException("Sequence length must be either 4 or 8");
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import me.jtalk.socketconnector.api.UDPConnectionFactory;
+import me.jtalk.socketconnector.api.UDPConnection;
+import java.net.InetSocketAddress;
+import javax.naming.NamingException;
+import javax.naming.Reference;
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionManager;
+
+public class UDPConnectionFactoryImpl implements UDPConnectionFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ConnectionManager manager;
+	private final ManagedUDPConnectionFactory parent;
+
+	private Reference jndiReference;
+
+	public UDPConnectionFactoryImpl(ManagedUDPConnectionFactory parent, ConnectionManager manager) {
+		this.manager = manager;
+		this.parent = parent;
+	}
+
+	@Override
+	public UDPConnection getConnection(long uid, long connectionId) throws ResourceException {
+		return safePerform(() -> (UDPConnection)this.manager.allocateConnection(this.parent, new ExistingUDPConnectionRequest(uid, connectionId)));
+	}
+
+	@Override
+	public UDPConnection bind(long uid, InetSocketAddress local) throws ResourceException {
+		return safePerform(() -> (UDPConnection)this.manager.allocateConnection(this.parent, new NewUDPConnectionRequest(uid, local)));
+	}
+
+	@Override
+	public Reference getReference() throws NamingException {
+		return this.jndiReference;
+	}
+
+	@Override
+	public void setReference(Reference reference) {
+		this.jndiReference = reference;
+	}
+
+	private static UDPConnection safePerform(ConnectionSupplier s) throws ResourceException {
+		try {
+			return s.get();
+		} catch (ResourceException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ResourceException) {
+				throw (ResourceException)cause;
+			} else {
+				throw new ResourceException("Unexpected exception caught", cause);
+			}
+		}
+	}
+
+	private interface ConnectionSupplier {
+		UDPConnection get() throws ResourceException;
+	}
+}
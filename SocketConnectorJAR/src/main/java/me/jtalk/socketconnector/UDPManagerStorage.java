@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import me.jtalk.socketconnector.io.UDPManager;
+
+public class UDPManagerStorage {
+
+	private static final EndpointPool[] NO_ENDPOINTS = new EndpointPool[0];
+
+	private UDPManager manager;
+	private UDPActivationSpec spec;
+
+	// Copy-on-write snapshots, same as in TCPManagerStorage
+	private volatile EndpointPool[] endpoints = NO_ENDPOINTS;
+	private volatile EndpointPool[] batchEndpoints = NO_ENDPOINTS;
+
+	public UDPManager getManager() {
+		return manager;
+	}
+
+	public void setManager(UDPManager manager) {
+		this.manager = manager;
+	}
+
+	public UDPActivationSpec getSpec() {
+		return spec;
+	}
+
+	public void setSpec(UDPActivationSpec spec) {
+		this.spec = spec;
+	}
+
+	public synchronized EndpointPool addEndpoint(MessageEndpointFactory factory, boolean batch, int poolSize) {
+		EndpointPool pool = new EndpointPool(factory, batch, poolSize);
+		if (batch) {
+			this.batchEndpoints = append(this.batchEndpoints, pool);
+		} else {
+			this.endpoints = append(this.endpoints, pool);
+		}
+		return pool;
+	}
+
+	public synchronized void removeEndpoint(MessageEndpointFactory factory) {
+		this.endpoints = remove(this.endpoints, factory);
+		this.batchEndpoints = remove(this.batchEndpoints, factory);
+	}
+
+	public boolean isEmpty() {
+		return this.endpoints.length == 0 && this.batchEndpoints.length == 0;
+	}
+
+	public boolean hasBatchEndpoints() {
+		return this.batchEndpoints.length != 0;
+	}
+
+	public EndpointPool[] endpoints() {
+		return this.endpoints;
+	}
+
+	public EndpointPool[] batchEndpoints() {
+		return this.batchEndpoints;
+	}
+
+	public synchronized void close() {
+		for (EndpointPool pool : this.endpoints) {
+			pool.close();
+		}
+		for (EndpointPool pool : this.batchEndpoints) {
+			pool.close();
+		}
+		this.endpoints = NO_ENDPOINTS;
+		this.batchEndpoints = NO_ENDPOINTS;
+	}
+
+	private static EndpointPool[] append(EndpointPool[] pools, EndpointPool pool) {
+		EndpointPool[] result = Arrays.copyOf(pools, pools.length + 1);
+		result[pools.length] = pool;
+		return result;
+	}
+
+	private static EndpointPool[] remove(EndpointPool[] pools, MessageEndpointFactory factory) {
+		List<EndpointPool> result = new ArrayList<>(pools.length);
+		for (EndpointPool pool : pools) {
+			if (pool.getFactory().equals(factory)) {
+				pool.close();
+			} else {
+				result.add(pool);
+			}
+		}
+		return result.toArray(NO_ENDPOINTS);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PoolChunkListMetric;
+import io.netty.buffer.PoolChunkMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import java.util.List;
+
+class AllocatorMetrics implements AllocatorMetricsMXBean {
+
+	private final ByteBufAllocatorMetric metric;
+	private final PooledByteBufAllocatorMetric pooled;
+
+	public AllocatorMetrics(ByteBufAllocator allocator) {
+		this.metric = ((ByteBufAllocatorMetricProvider)allocator).metric();
+		this.pooled = allocator instanceof PooledByteBufAllocator
+			? ((PooledByteBufAllocator)allocator).metric()
+			: null;
+	}
+
+	@Override
+	public boolean isPooled() {
+		return this.pooled != null;
+	}
+
+	@Override
+	public long getUsedDirectMemory() {
+		return this.metric.usedDirectMemory();
+	}
+
+	@Override
+	public long getUsedHeapMemory() {
+		return this.metric.usedHeapMemory();
+	}
+
+	@Override
+	public int getDirectArenas() {
+		return this.pooled == null ? 0 : this.pooled.numDirectArenas();
+	}
+
+	@Override
+	public int getHeapArenas() {
+		return this.pooled == null ? 0 : this.pooled.numHeapArenas();
+	}
+
+	@Override
+	public int getChunkSize() {
+		return this.pooled == null ? 0 : this.pooled.chunkSize();
+	}
+
+	@Override
+	public int getActiveDirectChunks() {
+		return this.pooled == null ? 0 : countChunks(this.pooled.directArenas());
+	}
+
+	@Override
+	public int getActiveHeapChunks() {
+		return this.pooled == null ? 0 : countChunks(this.pooled.heapArenas());
+	}
+
+	@Override
+	public long getActiveAllocations() {
+		if (this.pooled == null) {
+			return 0;
+		}
+		long result = 0;
+		for (PoolArenaMetric arena : this.pooled.directArenas()) {
+			result += arena.numActiveAllocations();
+		}
+		for (PoolArenaMetric arena : this.pooled.heapArenas()) {
+			result += arena.numActiveAllocations();
+		}
+		return result;
+	}
+
+	@Override
+	public int getThreadLocalCaches() {
+		return this.pooled == null ? 0 : this.pooled.numThreadLocalCaches();
+	}
+
+	private static int countChunks(List<PoolArenaMetric> arenas) {
+		int result = 0;
+		for (PoolArenaMetric arena : arenas) {
+			for (PoolChunkListMetric list : arena.chunkLists()) {
+				for (PoolChunkMetric chunk : list) {
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+/**
+ * Buffer allocator statistics of a single client, exported through JMX.
+ *
+ * Pool-specific values are zero for unpooled allocators.
+ */
+public interface AllocatorMetricsMXBean {
+
+	boolean isPooled();
+
+	long getUsedDirectMemory();
+
+	long getUsedHeapMemory();
+
+	int getDirectArenas();
+
+	int getHeapArenas();
+
+	int getChunkSize();
+
+	int getActiveDirectChunks();
+
+	int getActiveHeapChunks();
+
+	long getActiveAllocations();
+
+	int getThreadLocalCaches();
+}
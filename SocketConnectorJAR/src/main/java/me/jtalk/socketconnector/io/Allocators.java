@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * Builds per-client ByteBuf allocators from activation spec settings.
+ */
+public final class Allocators {
+
+	public static final String POOLED = "pooled";
+	public static final String UNPOOLED = "unpooled";
+
+	private static final int MAX_ORDER = 14;
+
+	private Allocators() {
+	}
+
+	public static boolean isKnown(String kind) {
+		return kind == null || POOLED.equalsIgnoreCase(kind) || UNPOOLED.equalsIgnoreCase(kind);
+	}
+
+	/**
+	 * Pooled chunk is a power of two number of pages, so only such sizes are
+	 * accepted. Zero stands for Netty's default chunk size.
+	 *
+	 * @param chunkSize Chunk size in bytes.
+	 * @return Whether the pooled allocator can be built with such chunks.
+	 */
+	public static boolean isValidChunkSize(int chunkSize) {
+		if (chunkSize == 0) {
+			return true;
+		}
+		int pageSize = PooledByteBufAllocator.defaultPageSize();
+		return chunkSize >= pageSize
+			&& Integer.bitCount(chunkSize) == 1
+			&& Integer.numberOfTrailingZeros(chunkSize / pageSize) <= MAX_ORDER;
+	}
+
+	/**
+	 * Creates a new allocator.
+	 *
+	 * @param kind Either {@link #POOLED} or {@link #UNPOOLED}, null means pooled.
+	 * @param preferDirect Whether I/O buffers should be allocated off-heap.
+	 * @param arenas Number of both heap and direct arenas of the pooled allocator,
+	 * zero means Netty's default.
+	 * @param chunkSize Pooled allocator chunk size, zero means Netty's default.
+	 * @return Allocator instance to be shared by all channels of a client.
+	 */
+	static ByteBufAllocator create(String kind, boolean preferDirect, int arenas, int chunkSize) {
+		if (UNPOOLED.equalsIgnoreCase(kind)) {
+			return new UnpooledByteBufAllocator(preferDirect);
+		}
+		int pageSize = PooledByteBufAllocator.defaultPageSize();
+		int maxOrder = chunkSize == 0
+			? PooledByteBufAllocator.defaultMaxOrder()
+			: Integer.numberOfTrailingZeros(chunkSize / pageSize);
+		int heapArenas = arenas == 0 ? PooledByteBufAllocator.defaultNumHeapArena() : arenas;
+		int directArenas = arenas == 0 ? PooledByteBufAllocator.defaultNumDirectArena() : arenas;
+		return new PooledByteBufAllocator(preferDirect, heapArenas, directArenas, pageSize, maxOrder,
+			PooledByteBufAllocator.defaultSmallCacheSize(), PooledByteBufAllocator.defaultNormalCacheSize(),
+			PooledByteBufAllocator.defaultUseCacheForAllThreads());
+	}
+}
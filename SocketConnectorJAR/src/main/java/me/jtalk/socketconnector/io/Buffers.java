@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+
+/**
+ * Conversions of outbound data supplied by the API users to Netty buffers.
+ */
+final class Buffers {
+
+	private Buffers() {
+	}
+
+	/**
+	 * Several buffers are combined into a composite one without copying, so
+	 * that they are written with a single gathering write.
+	 */
+	static ByteBuf toByteBuf(ByteBufAllocator allocator, ByteBuffer[] data) {
+		if (data.length == 1) {
+			return toByteBuf(allocator, data[0]);
+		}
+		CompositeByteBuf result = allocator.compositeBuffer(data.length);
+		try {
+			for (ByteBuffer buffer : data) {
+				result.addComponent(true, toByteBuf(allocator, buffer));
+			}
+		} catch (RuntimeException | Error e) {
+			// Components added so far are released with the composite
+			result.release();
+			throw e;
+		}
+		return result;
+	}
+
+	/**
+	 * Direct buffers are wrapped as is. Heap ones are copied to a buffer of
+	 * the client's allocator right away, so that the caller is free to reuse
+	 * its buffer once send returns. The copy is direct unless the client
+	 * prefers heap buffers.
+	 */
+	static ByteBuf toByteBuf(ByteBufAllocator allocator, ByteBuffer data) {
+		if (data.isDirect()) {
+			return Unpooled.wrappedBuffer(data);
+		}
+		ByteBuf result = allocator.buffer(data.remaining());
+		// Position is restored rather than a duplicate allocated per send
+		int position = data.position();
+		result.writeBytes(data);
+		data.position(position);
+		return result;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Copy-on-write map of per-client state keyed by primitive client IDs.
+ *
+ * Clients are added and removed on endpoint activation only, while every
+ * message sent or received looks its client up. Lookups read a volatile
+ * immutable snapshot without locking or boxing, modifications replace the
+ * snapshot and must be serialized by the caller.
+ *
+ * @param <T> Client state type.
+ */
+public class ClientMap<T> {
+
+	private volatile LongObjectMap<T> snapshot = new LongObjectHashMap<>();
+
+	public T get(long clientId) {
+		return this.snapshot.get(clientId);
+	}
+
+	public void put(long clientId, T value) {
+		LongObjectMap<T> updated = new LongObjectHashMap<>(this.snapshot.size() + 1);
+		updated.putAll(this.snapshot);
+		updated.put(clientId, value);
+		this.snapshot = updated;
+	}
+
+	public T remove(long clientId) {
+		LongObjectMap<T> current = this.snapshot;
+		if (!current.containsKey(clientId)) {
+			return null;
+		}
+		LongObjectMap<T> updated = new LongObjectHashMap<>(current.size());
+		updated.putAll(current);
+		T removed = updated.remove(clientId);
+		this.snapshot = updated;
+		return removed;
+	}
+
+	/**
+	 * @return Client states at the moment of the call.
+	 */
+	public Collection<T> values() {
+		return new ArrayList<>(this.snapshot.values());
+	}
+
+	public void clear() {
+		this.snapshot = new LongObjectHashMap<>();
+	}
+}
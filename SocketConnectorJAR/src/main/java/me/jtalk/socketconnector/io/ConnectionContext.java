@@ -18,7 +18,12 @@
 package me.jtalk.socketconnector.io;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import java.net.SocketAddress;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import me.jtalk.socketconnector.api.ConnectionClosedException;
 
 class ConnectionContext {
 
@@ -26,11 +31,63 @@ class ConnectionContext {
 	public final SocketAddress local;
 	public final SocketAddress remote;
 	public final boolean listening;
+	public final DeliveryQueue delivery;
+	public final WriteQueue writes;
+	public final ChannelFutureListener sendListener;
+	public final Reconnection reconnection;
 
-	public ConnectionContext(Channel channel, SocketAddress local, SocketAddress remote, boolean listening) {
+	private final Queue<CompletableFuture<Void>> writabilityWaiters = new ConcurrentLinkedQueue<>();
+
+	public ConnectionContext(Channel channel, SocketAddress local, SocketAddress remote, boolean listening, DeliveryQueue delivery, WriteQueue writes,
+			ChannelFutureListener sendListener, Reconnection reconnection) {
 		this.channel = channel;
 		this.local = local;
 		this.remote = remote;
 		this.listening = listening;
+		this.delivery = delivery;
+		this.writes = writes;
+		this.sendListener = sendListener;
+		this.reconnection = reconnection;
+	}
+
+	/**
+	 * Takes over writability waiters of the previous link of a reconnected
+	 * connection.
+	 */
+	public void adopt(ConnectionContext previous) {
+		CompletableFuture<Void> waiter;
+		while ((waiter = previous.writabilityWaiters.poll()) != null) {
+			this.writabilityWaiters.add(waiter);
+		}
+		this.writabilityChanged();
+	}
+
+	public CompletableFuture<Void> whenWritable() {
+		if (this.channel.isWritable()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		this.writabilityWaiters.add(result);
+		// Writability might have changed before the waiter was added
+		this.writabilityChanged();
+		return result;
+	}
+
+	public void writabilityChanged() {
+		if (!this.channel.isActive()) {
+			if (this.reconnection != null && this.reconnection.isDown()) {
+				// Waiters are taken over by the next link
+				return;
+			}
+			CompletableFuture<Void> waiter;
+			while ((waiter = this.writabilityWaiters.poll()) != null) {
+				waiter.completeExceptionally(new ConnectionClosedException("Connection is closed"));
+			}
+		} else if (this.channel.isWritable()) {
+			CompletableFuture<Void> waiter;
+			while ((waiter = this.writabilityWaiters.poll()) != null) {
+				waiter.complete(null);
+			}
+		}
 	}
 }
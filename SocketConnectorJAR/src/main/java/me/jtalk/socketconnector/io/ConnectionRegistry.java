@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free registry of objects identified by primitive IDs.
+ *
+ * An ID holds a slot index in its lower 32 bits and the slot generation in
+ * the upper ones, so a lookup is an array access with no hashing or boxing.
+ * The generation is advanced every time a slot is freed: stale IDs of
+ * closed connections never resolve to a connection reusing their slot.
+ * Free slots are kept in a lock-free stack and reused before new ones are
+ * allocated.
+ *
+ * @param <T> Registered object type.
+ */
+public class ConnectionRegistry<T> {
+
+	private static final int SEGMENT_SHIFT = 10;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	private static final int GENERATION_MASK = Integer.MAX_VALUE;
+	private static final long SLOT_MASK = 0xFFFFFFFFL;
+
+	private static class Segment<T> {
+		final AtomicReferenceArray<T> values = new AtomicReferenceArray<>(SEGMENT_SIZE);
+		final AtomicIntegerArray generations = new AtomicIntegerArray(SEGMENT_SIZE);
+		// Next free slot + 1, 0 for the stack bottom
+		final AtomicIntegerArray next = new AtomicIntegerArray(SEGMENT_SIZE);
+	}
+
+	private volatile Segment<T>[] segments = newSegments(0);
+	private final AtomicInteger allocated = new AtomicInteger(0);
+	// Top slot + 1 in the lower half, ABA counter in the upper one
+	private final AtomicLong freeHead = new AtomicLong(0);
+
+	/**
+	 * Reserves a slot. The ID returned does not resolve to anything
+	 * until {@link #put(long, Object)} is called, and must be passed to
+	 * {@link #remove(long)} to free the slot.
+	 *
+	 * @return New ID, always positive.
+	 */
+	public long reserve() {
+		int slot = this.pop();
+		if (slot < 0) {
+			slot = this.allocated.getAndIncrement();
+			if (slot < 0) {
+				this.allocated.decrementAndGet();
+				throw new IllegalStateException("Connection registry is full");
+			}
+		}
+		Segment<T> segment = this.segment(slot);
+		int generation = segment.generations.get(slot & SEGMENT_MASK);
+		if (generation == 0) {
+			segment.generations.compareAndSet(slot & SEGMENT_MASK, 0, 1);
+			generation = 1;
+		}
+		return ((long)generation << 32) | slot;
+	}
+
+	/**
+	 * Associates an object with a reserved ID. Stale IDs are ignored.
+	 *
+	 * @return Whether the object is registered.
+	 */
+	public boolean put(long id, T value) {
+		Segment<T> segment = this.existing(slot(id));
+		if (segment == null) {
+			return false;
+		}
+		int index = slot(id) & SEGMENT_MASK;
+		if (segment.generations.get(index) != generation(id)) {
+			return false;
+		}
+		segment.values.set(index, value);
+		if (segment.generations.get(index) != generation(id)) {
+			// Removed concurrently, the slot may already be reused
+			segment.values.compareAndSet(index, value, null);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return Object registered with the ID, null if there is none or the
+	 * ID is stale.
+	 */
+	public T get(long id) {
+		Segment<T> segment = this.existing(slot(id));
+		if (segment == null) {
+			return null;
+		}
+		int index = slot(id) & SEGMENT_MASK;
+		T value = segment.values.get(index);
+		// The generation is advanced before a slot is reused, so a match
+		// after the read means the value belongs to this ID
+		return segment.generations.get(index) == generation(id) ? value : null;
+	}
+
+	/**
+	 * Unregisters an object and frees its slot. Removing a stale ID or the
+	 * same ID twice has no effect.
+	 *
+	 * @return Object removed, null if there was none.
+	 */
+	public T remove(long id) {
+		Segment<T> segment = this.existing(slot(id));
+		if (segment == null) {
+			return null;
+		}
+		int index = slot(id) & SEGMENT_MASK;
+		int generation = generation(id);
+		if (segment.generations.get(index) != generation) {
+			return null;
+		}
+		if (!segment.generations.compareAndSet(index, generation, nextGeneration(generation))) {
+			return null;
+		}
+		T value = segment.values.getAndSet(index, null);
+		this.push(slot(id));
+		return value;
+	}
+
+	/**
+	 * Calls an action for every registered object. Objects registered or
+	 * removed concurrently may or may not be visited.
+	 */
+	public void forEach(Consumer<? super T> action) {
+		Segment<T>[] current = this.segments;
+		int count = Math.min(this.allocated.get(), current.length * SEGMENT_SIZE);
+		for (int slot = 0; slot < count; slot++) {
+			T value = current[slot >>> SEGMENT_SHIFT].values.get(slot & SEGMENT_MASK);
+			if (value != null) {
+				action.accept(value);
+			}
+		}
+	}
+
+	private int pop() {
+		while (true) {
+			long head = this.freeHead.get();
+			int slot = (int)(head & SLOT_MASK) - 1;
+			if (slot < 0) {
+				return -1;
+			}
+			int next = this.segment(slot).next.get(slot & SEGMENT_MASK);
+			if (this.freeHead.compareAndSet(head, stamp(head, next))) {
+				return slot;
+			}
+		}
+	}
+
+	private void push(int slot) {
+		Segment<T> segment = this.segment(slot);
+		while (true) {
+			long head = this.freeHead.get();
+			segment.next.set(slot & SEGMENT_MASK, (int)(head & SLOT_MASK));
+			if (this.freeHead.compareAndSet(head, stamp(head, slot + 1))) {
+				return;
+			}
+		}
+	}
+
+	private Segment<T> existing(int slot) {
+		Segment<T>[] current = this.segments;
+		int index = slot >>> SEGMENT_SHIFT;
+		return slot >= 0 && index < current.length ? current[index] : null;
+	}
+
+	private Segment<T> segment(int slot) {
+		Segment<T> segment = this.existing(slot);
+		if (segment != null) {
+			return segment;
+		}
+		synchronized (this) {
+			Segment<T>[] current = this.segments;
+			int index = slot >>> SEGMENT_SHIFT;
+			if (index >= current.length) {
+				Segment<T>[] grown = newSegments(Math.max(index + 1, current.length * 2));
+				System.arraycopy(current, 0, grown, 0, current.length);
+				for (int i = current.length; i < grown.length; i++) {
+					grown[i] = new Segment<>();
+				}
+				this.segments = grown;
+				current = grown;
+			}
+			return current[index];
+		}
+	}
+
+	private static long stamp(long head, int top) {
+		return ((head >>> 32) + 1) << 32 | (top & SLOT_MASK);
+	}
+
+	private static int slot(long id) {
+		return (int)(id & SLOT_MASK);
+	}
+
+	private static int generation(long id) {
+		return (int)(id >>> 32);
+	}
+
+	private static int nextGeneration(int generation) {
+		int next = (generation + 1) & GENERATION_MASK;
+		return next == 0 ? 1 : next;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Segment<T>[] newSegments(int length) {
+		return (Segment<T>[])new Segment<?>[length];
+	}
+}
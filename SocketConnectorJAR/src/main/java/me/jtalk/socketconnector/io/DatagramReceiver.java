@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import me.jtalk.socketconnector.api.UDPMessage;
+
+class DatagramReceiver extends SimpleChannelInboundHandler<DatagramPacket> {
+
+	private static final Logger log = Logger.getLogger(DatagramReceiver.class.getName());
+
+	private final long id;
+	private final int shard;
+	private final UDPManager manager;
+	private final UDPSocketMetrics metrics;
+	private final MulticastMetrics multicast;
+	private final boolean destinationKnown;
+
+	// Datagrams of the current read pass, for batch listeners
+	private final List<UDPMessage> batch = new ArrayList<>();
+
+	/**
+	 * @param multicast Multicast statistics, null if the socket has not
+	 * joined any groups.
+	 * @param destinationKnown Whether packets report their original
+	 * destination, i.e. the multicast group, as the recipient.
+	 */
+	public DatagramReceiver(UDPManager manager, long id, int shard, UDPSocketMetrics metrics,
+			MulticastMetrics multicast, boolean destinationKnown) {
+		this.id = id;
+		this.shard = shard;
+		this.manager = manager;
+		this.metrics = metrics;
+		this.multicast = multicast;
+		this.destinationKnown = destinationKnown;
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) throws Exception {
+		int length = msg.content().readableBytes();
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Datagram (%d bytes) received for id %d from %s", length, this.id, msg.sender()));
+		}
+		this.metrics.received(this.shard, length);
+		if (this.multicast != null) {
+			InetSocketAddress key = this.destinationKnown ? msg.recipient() : msg.sender();
+			this.multicast.received(key.getAddress(), msg.content());
+		}
+		UDPMessage message = this.manager.dataReceived(this.id, msg);
+		if (this.manager.isBatchDelivery()) {
+			this.batch.add(message);
+		}
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		if (!this.batch.isEmpty()) {
+			try {
+				this.manager.batchReceived(Collections.unmodifiableList(new ArrayList<>(this.batch)));
+			} finally {
+				this.batch.clear();
+			}
+		}
+		super.channelReadComplete(ctx);
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		// A datagram socket stays usable after errors like ICMP port unreachable
+		log.log(Level.FINE, String.format("Datagram socket error for id %d", this.id), cause);
+	}
+}
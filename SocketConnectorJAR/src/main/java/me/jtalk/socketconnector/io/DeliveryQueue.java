@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import me.jtalk.socketconnector.api.TCPMessage;
+
+/**
+ * Serial queue of endpoint deliveries for a single connection.
+ *
+ * Items are added on the connection's event loop and drained by at most one
+ * delivery executor thread at a time, so connection ordering is kept while
+ * different connections are delivered in parallel. Once the queue reaches
+ * its depth, reading from the connection is suspended until the queue is
+ * drained to a half of it.
+ */
+class DeliveryQueue implements Runnable {
+
+	private static final Logger log = Logger.getLogger(DeliveryQueue.class.getName());
+
+	private final TCPManager manager;
+	private final Channel channel;
+	private final Executor executor;
+	private final int depth;
+	private final int drainLimit;
+
+	private final Queue<Object> items = PlatformDependent.newMpscQueue();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable resume = this::resume;
+
+	// Written on the event loop, read by the draining thread. Pausing sets it
+	// before checking the size and draining decrements the size before
+	// checking it, so either the drain posts a resume or the pause sees the
+	// queue drained and resumes itself
+	private volatile boolean paused;
+
+	public DeliveryQueue(TCPManager manager, Channel channel, Executor executor, int depth, int drainLimit) {
+		this.manager = manager;
+		this.channel = channel;
+		this.executor = executor;
+		this.depth = depth;
+		this.drainLimit = drainLimit;
+	}
+
+	/**
+	 * Queues message delivery. Reference counted messages are retained until
+	 * delivered.
+	 */
+	public void add(TCPMessage message) {
+		this.offer(ReferenceCountUtil.retain(message));
+	}
+
+	/**
+	 * Queues a task to be run after all the messages queued before.
+	 */
+	public void add(Runnable task) {
+		this.offer(task);
+	}
+
+	@Override
+	public void run() {
+		List<TCPMessage> batch = this.manager.isBatchDelivery() ? new ArrayList<>() : null;
+		int drained = 0;
+		try {
+			Object item;
+			while (drained < this.drainLimit && (item = this.items.poll()) != null) {
+				drained++;
+				if (item instanceof TCPMessage) {
+					TCPMessage message = (TCPMessage)item;
+					this.deliver(message, batch);
+				} else {
+					this.flush(batch);
+					((Runnable)item).run();
+				}
+			}
+			this.flush(batch);
+		} finally {
+			int left = this.size.addAndGet(-drained);
+			if (this.paused && left <= this.depth / 2) {
+				try {
+					this.channel.eventLoop().execute(this.resume);
+				} catch (RejectedExecutionException e) {
+					log.log(Level.FINE, "Reading is not resumed for {0}: client is closed", this.channel.remoteAddress());
+				}
+			}
+			this.scheduled.set(false);
+			if (!this.items.isEmpty()) {
+				this.schedule();
+			}
+		}
+	}
+
+	private void offer(Object item) {
+		this.items.offer(item);
+		if (this.size.incrementAndGet() >= this.depth && !this.paused) {
+			log.finer(String.format("Delivery queue for %s is full, reading suspended", this.channel.remoteAddress()));
+			this.paused = true;
+			this.channel.config().setAutoRead(false);
+			// Drained meanwhile by a run that has not seen the pause
+			this.resume();
+		}
+		this.schedule();
+	}
+
+	private void schedule() {
+		if (!this.scheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.executor.execute(this);
+		} catch (RejectedExecutionException e) {
+			log.log(Level.WARNING, "Delivery offloading rejected, delivering in place", e);
+			this.run();
+		}
+	}
+
+	private void resume() {
+		if (this.paused && this.size.get() <= this.depth / 2) {
+			log.finer(String.format("Delivery queue for %s is drained, reading resumed", this.channel.remoteAddress()));
+			this.paused = false;
+			this.channel.config().setAutoRead(true);
+		}
+	}
+
+	private void deliver(TCPMessage message, List<TCPMessage> batch) {
+		if (batch != null) {
+			batch.add(message);
+		}
+		try {
+			this.manager.deliver(message);
+		} finally {
+			if (batch == null) {
+				ReferenceCountUtil.release(message);
+			}
+		}
+	}
+
+	private void flush(List<TCPMessage> batch) {
+		if (batch == null || batch.isEmpty()) {
+			return;
+		}
+		try {
+			this.manager.batchReceived(Collections.unmodifiableList(new ArrayList<>(batch)));
+		} finally {
+			for (TCPMessage m : batch) {
+				ReferenceCountUtil.release(m);
+			}
+			batch.clear();
+		}
+	}
+}
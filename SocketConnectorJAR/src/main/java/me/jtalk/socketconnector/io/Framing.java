@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.FixedLengthFrameDecoder;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import java.util.Locale;
+import java.util.function.Supplier;
+import me.jtalk.socketconnector.TCPActivationSpec;
+
+/**
+ * Frame decoding strategies installed ahead of {@link Receiver}, so that
+ * every message delivered contains exactly one application frame.
+ */
+public enum Framing {
+
+	NONE {
+		@Override
+		Supplier<ChannelHandler> decoders(TCPActivationSpec spec) {
+			return null;
+		}
+	},
+
+	LENGTH {
+		@Override
+		Supplier<ChannelHandler> decoders(TCPActivationSpec spec) {
+			int maxLength = spec.getFrameMaxLength();
+			int offset = spec.getFrameLengthFieldOffset();
+			int length = spec.getFrameLengthFieldLength();
+			int adjustment = spec.getFrameLengthAdjustment();
+			int strip = spec.getFrameBytesToStrip();
+			return () -> new LengthFieldBasedFrameDecoder(maxLength, offset, length, adjustment, strip);
+		}
+	},
+
+	DELIMITER {
+		@Override
+		Supplier<ChannelHandler> decoders(TCPActivationSpec spec) {
+			int maxLength = spec.getFrameMaxLength();
+			byte[] delimiter = ByteBufUtil.decodeHexDump(spec.getFrameDelimiter());
+			return () -> new DelimiterBasedFrameDecoder(maxLength, Unpooled.wrappedBuffer(delimiter));
+		}
+	},
+
+	FIXED {
+		@Override
+		Supplier<ChannelHandler> decoders(TCPActivationSpec spec) {
+			int length = spec.getFrameFixedLength();
+			return () -> new FixedLengthFrameDecoder(length);
+		}
+	},
+
+	LINE {
+		@Override
+		Supplier<ChannelHandler> decoders(TCPActivationSpec spec) {
+			int maxLength = spec.getFrameMaxLength();
+			return () -> new LineBasedFrameDecoder(maxLength);
+		}
+	};
+
+	/**
+	 * Creates a factory of per-channel decoders. Frame decoders are stateful,
+	 * so each channel must get its own instance.
+	 *
+	 * @param spec Activation spec to read framing parameters from.
+	 * @return Decoder factory, or null if no decoding is required.
+	 */
+	abstract Supplier<ChannelHandler> decoders(TCPActivationSpec spec);
+
+	public static boolean isKnown(String name) {
+		if (name == null) {
+			return true;
+		}
+		for (Framing f : values()) {
+			if (f.name().equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static Framing forName(String name) {
+		return name == null ? NONE : Framing.valueOf(name.toUpperCase(Locale.ROOT));
+	}
+
+	public static boolean isValidDelimiter(String hex) {
+		if (hex == null || hex.isEmpty() || hex.length() % 2 != 0) {
+			return false;
+		}
+		for (int i = 0; i < hex.length(); i++) {
+			if (Character.digit(hex.charAt(i), 16) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
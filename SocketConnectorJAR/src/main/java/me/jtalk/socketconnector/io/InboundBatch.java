@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.api.TCPMessage;
+
+/**
+ * Messages accumulated on a single event loop for batch listeners.
+ *
+ * Only accessed from its event loop thread, so no synchronization is
+ * required, and messages of a connection keep their order.
+ */
+class InboundBatch implements Runnable {
+
+	private final TCPManager manager;
+	private final EventLoop loop;
+	private final int size;
+	private final long lingerMillis;
+
+	private List<TCPMessage> messages;
+	private boolean lingering;
+
+	public InboundBatch(TCPManager manager, EventLoop loop, int size, long lingerMillis) {
+		this.manager = manager;
+		this.loop = loop;
+		this.size = size;
+		this.lingerMillis = lingerMillis;
+	}
+
+	/**
+	 * Adds a message to the batch. Reference counted messages are retained
+	 * until the batch is delivered.
+	 */
+	public void add(TCPMessage message) {
+		if (this.messages == null) {
+			this.messages = new ArrayList<>(this.size);
+		}
+		this.messages.add(ReferenceCountUtil.retain(message));
+		if (this.messages.size() >= this.size) {
+			this.flush();
+		} else if (!this.lingering) {
+			this.lingering = true;
+			this.loop.schedule(this, this.lingerMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public void flush() {
+		List<TCPMessage> batch = this.messages;
+		if (batch == null) {
+			return;
+		}
+		this.messages = null;
+		try {
+			this.manager.batchReceived(Collections.unmodifiableList(batch));
+		} finally {
+			for (TCPMessage m : batch) {
+				ReferenceCountUtil.release(m);
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		this.lingering = false;
+		this.flush();
+	}
+}
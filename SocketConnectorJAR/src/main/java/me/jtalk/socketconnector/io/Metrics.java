@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Registration of statistics MBeans in the platform MBean server. Failures
+ * are logged rather than thrown: sockets work fine without their metrics.
+ */
+final class Metrics {
+
+	private static final Logger log = Logger.getLogger(Metrics.class.getName());
+
+	private static final String DOMAIN = "me.jtalk.socketconnector";
+
+	private Metrics() {
+	}
+
+	static String name(String type, long clientId) {
+		return String.format("%s:type=%s,clientId=%d", DOMAIN, type, clientId);
+	}
+
+	static String name(String type, long clientId, long id) {
+		return String.format("%s:type=%s,clientId=%d,id=%d", DOMAIN, type, clientId, id);
+	}
+
+	/**
+	 * @return Name the MBean is registered with, null if registration failed.
+	 */
+	static ObjectName register(String name, Object mbean) {
+		try {
+			ObjectName result = new ObjectName(name);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, result);
+			return result;
+		} catch (JMException e) {
+			log.log(Level.WARNING, String.format("Metrics %s are not exported", name), e);
+			return null;
+		}
+	}
+
+	static void unregister(ObjectName name) {
+		if (name == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException e) {
+			log.log(Level.WARNING, String.format("Metrics %s unregistering failed", name), e);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Parsing of multicast settings from the UDP activation spec.
+ */
+public final class MulticastGroups {
+
+	private MulticastGroups() {
+	}
+
+	/**
+	 * @param groups Comma-separated multicast group addresses, may be null or empty.
+	 * @return Group addresses, empty if none are configured.
+	 * @throws IllegalArgumentException if any of the addresses is not a
+	 * multicast one.
+	 */
+	public static List<InetAddress> parse(String groups) {
+		if (groups == null || groups.trim().isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<InetAddress> result = new ArrayList<>();
+		for (String group : groups.split(",")) {
+			InetAddress address;
+			try {
+				address = InetAddress.getByName(group.trim());
+			} catch (UnknownHostException e) {
+				throw new IllegalArgumentException("Unknown multicast group " + group.trim(), e);
+			}
+			if (!address.isMulticastAddress()) {
+				throw new IllegalArgumentException(group.trim() + " is not a multicast address");
+			}
+			result.add(address);
+		}
+		return result;
+	}
+
+	/**
+	 * @param name Network interface name, null or empty for the system default.
+	 * @return Network interface. The system default is the first interface
+	 * that is up and supports multicast, non-loopback ones first.
+	 * @throws IllegalArgumentException if there is no such interface.
+	 */
+	public static NetworkInterface networkInterface(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			return defaultInterface();
+		}
+		try {
+			NetworkInterface result = NetworkInterface.getByName(name.trim());
+			if (result == null) {
+				throw new IllegalArgumentException("Unknown network interface " + name.trim());
+			}
+			return result;
+		} catch (SocketException e) {
+			throw new IllegalArgumentException("Network interface " + name.trim() + " cannot be resolved", e);
+		}
+	}
+
+	private static NetworkInterface defaultInterface() {
+		NetworkInterface loopback = null;
+		try {
+			Enumeration<NetworkInterface> ifaces = NetworkInterface.getNetworkInterfaces();
+			while (ifaces != null && ifaces.hasMoreElements()) {
+				NetworkInterface iface = ifaces.nextElement();
+				if (!iface.isUp() || !iface.supportsMulticast()) {
+					continue;
+				}
+				if (!iface.isLoopback()) {
+					return iface;
+				}
+				if (loopback == null) {
+					loopback = iface;
+				}
+			}
+		} catch (SocketException e) {
+			throw new IllegalArgumentException("Network interfaces cannot be listed", e);
+		}
+		if (loopback == null) {
+			throw new IllegalArgumentException("No network interface supports multicast, set one explicitly");
+		}
+		return loopback;
+	}
+}
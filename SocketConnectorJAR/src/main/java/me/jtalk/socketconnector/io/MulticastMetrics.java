@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.buffer.ByteBuf;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tracks sequence numbers carried by multicast datagrams. Datagrams are
+ * expected to contain an unsigned big-endian sequence number, incremented by
+ * one per datagram, at a fixed payload offset.
+ *
+ * Numbers are compared with serial number arithmetic, so a sequence wrapping
+ * around its length continues without a gap. A datagram up to
+ * {@link #REORDER_WINDOW} numbers behind the latest one is late or
+ * duplicate, one further behind means the sender has restarted its sequence.
+ *
+ * Updated from the multicast socket's event loop only.
+ */
+class MulticastMetrics implements MulticastMetricsMXBean {
+
+	static final int REORDER_WINDOW = 1024;
+
+	private final List<InetAddress> groups;
+	private final int sequenceOffset;
+	private final int sequenceLength;
+	private final Map<InetAddress, Sequence> sequences = new ConcurrentHashMap<>();
+
+	/**
+	 * @param sequenceOffset Sequence number offset in the payload, negative
+	 * if datagrams are only counted.
+	 * @param sequenceLength Sequence number length, 4 or 8 bytes.
+	 */
+	public MulticastMetrics(List<InetAddress> groups, int sequenceOffset, int sequenceLength) {
+		this.groups = groups;
+		this.sequenceOffset = sequenceOffset;
+		this.sequenceLength = sequenceLength;
+	}
+
+	void received(InetAddress key, ByteBuf content) {
+		Sequence sequence = this.sequences.computeIfAbsent(key, k -> new Sequence(this.sequenceLength));
+		sequence.received++;
+		if (this.sequenceOffset < 0 || content.readableBytes() < this.sequenceOffset + this.sequenceLength) {
+			return;
+		}
+		int index = content.readerIndex() + this.sequenceOffset;
+		long number = this.sequenceLength == 8 ? content.getLong(index) : content.getUnsignedInt(index);
+		sequence.update(number);
+	}
+
+	@Override
+	public String[] getGroups() {
+		return this.groups.stream().map(InetAddress::getHostAddress).toArray(String[]::new);
+	}
+
+	@Override
+	public Map<String, Long> getReceivedDatagrams() {
+		return this.snapshot(s -> s.received);
+	}
+
+	@Override
+	public Map<String, Long> getSequenceGaps() {
+		return this.snapshot(s -> s.gaps);
+	}
+
+	@Override
+	public Map<String, Long> getMissingDatagrams() {
+		return this.snapshot(s -> s.missing);
+	}
+
+	@Override
+	public Map<String, Long> getOutOfOrderDatagrams() {
+		return this.snapshot(s -> s.outOfOrder);
+	}
+
+	@Override
+	public Map<String, Long> getSequenceResets() {
+		return this.snapshot(s -> s.resets);
+	}
+
+	private Map<String, Long> snapshot(ToLongFunction<Sequence> value) {
+		Map<String, Long> result = new TreeMap<>();
+		this.sequences.forEach((k, v) -> result.put(k.getHostAddress(), value.applyAsLong(v)));
+		return result;
+	}
+
+	private static class Sequence {
+
+		// Single writer, volatile for JMX readers only
+		volatile long received;
+		volatile long gaps;
+		volatile long missing;
+		volatile long outOfOrder;
+		volatile long resets;
+
+		private final int length;
+		private boolean started;
+		private long last;
+
+		Sequence(int length) {
+			this.length = length;
+		}
+
+		void update(long number) {
+			if (!this.started) {
+				this.started = true;
+				this.last = number;
+				return;
+			}
+			long distance = this.distance(number);
+			if (distance <= 0) {
+				if (distance < -REORDER_WINDOW) {
+					this.resets++;
+					this.last = number;
+				} else {
+					// Duplicate or a late datagram already counted as missing
+					this.outOfOrder++;
+				}
+				return;
+			}
+			if (distance > 1) {
+				this.gaps++;
+				this.missing += distance - 1;
+			}
+			this.last = number;
+		}
+
+		/**
+		 * @return Signed distance from the latest number, modulo the
+		 * sequence length.
+		 */
+		private long distance(long number) {
+			return this.length == 8 ? number - this.last : (int)(number - this.last);
+		}
+	}
+}
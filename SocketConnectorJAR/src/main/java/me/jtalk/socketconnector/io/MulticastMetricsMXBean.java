@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import java.util.Map;
+
+/**
+ * Multicast feed statistics of a single client, exported through JMX. Values
+ * are keyed by multicast group if the transport reports datagram destination
+ * addresses (epoll), and by sender address otherwise.
+ */
+public interface MulticastMetricsMXBean {
+
+	String[] getGroups();
+
+	Map<String, Long> getReceivedDatagrams();
+
+	Map<String, Long> getSequenceGaps();
+
+	Map<String, Long> getMissingDatagrams();
+
+	Map<String, Long> getOutOfOrderDatagrams();
+
+	Map<String, Long> getSequenceResets();
+}
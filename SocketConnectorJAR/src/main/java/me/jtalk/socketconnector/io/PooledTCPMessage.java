@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.internal.ObjectPool;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import me.jtalk.socketconnector.api.TCPMessage;
+
+/**
+ * TCP message backed by the buffer Netty has read data into.
+ *
+ * The message holds its own reference to the buffer and is released by
+ * {@link TCPManager} once delivery returns. Anyone delivering the message
+ * later, like {@link InboundBatch}, must retain it. Once the last reference
+ * is released, the buffer is released too. Connection details and the data
+ * array, if any, stay with the message, unless the message is recycled for
+ * another read. Data array is only materialized if someone asks for it.
+ */
+class PooledTCPMessage extends AbstractReferenceCounted implements TCPMessage {
+
+	private static final ObjectPool<PooledTCPMessage> POOL = ObjectPool.newPool(PooledTCPMessage::new);
+
+	private final ObjectPool.Handle<PooledTCPMessage> handle;
+	private long connectionId;
+	private SocketAddress remote;
+	private SocketAddress local;
+	private long receiveTimestamp;
+	private ByteBuf buffer;
+	private byte[] data;
+
+	private PooledTCPMessage(ObjectPool.Handle<PooledTCPMessage> handle) {
+		this.handle = handle;
+	}
+
+	/**
+	 * @param recycle Whether the message is taken from a pool and returned
+	 * to it once released.
+	 * @param buffer Buffer with message data, retained by the message.
+	 */
+	static PooledTCPMessage newInstance(boolean recycle, long connectionId, SocketAddress remote, SocketAddress local,
+			ByteBuf buffer, long receiveTimestamp) {
+		PooledTCPMessage message = recycle ? POOL.get() : new PooledTCPMessage(null);
+		message.setRefCnt(1);
+		message.connectionId = connectionId;
+		message.remote = remote;
+		message.local = local;
+		message.receiveTimestamp = receiveTimestamp;
+		message.buffer = buffer.retain();
+		return message;
+	}
+
+	@Override
+	public long getConnectionId() {
+		return this.connectionId;
+	}
+
+	@Override
+	public SocketAddress getRemote() {
+		return this.remote;
+	}
+
+	@Override
+	public SocketAddress getLocal() {
+		return this.local;
+	}
+
+	@Override
+	public long getReceiveTimestamp() {
+		return this.receiveTimestamp;
+	}
+
+	@Override
+	public byte[] getData() {
+		if (this.data == null) {
+			this.data = ByteBufUtil.getBytes(this.buffer);
+		}
+		return this.data;
+	}
+
+	@Override
+	public ByteBuffer getBuffer() {
+		return this.buffer.nioBuffer().asReadOnlyBuffer();
+	}
+
+	@Override
+	public PooledTCPMessage touch(Object hint) {
+		this.buffer.touch(hint);
+		return this;
+	}
+
+	@Override
+	protected void deallocate() {
+		this.buffer.release();
+		if (this.handle == null) {
+			return;
+		}
+		this.buffer = null;
+		this.remote = null;
+		this.local = null;
+		this.data = null;
+		this.handle.recycle(this);
+	}
+}
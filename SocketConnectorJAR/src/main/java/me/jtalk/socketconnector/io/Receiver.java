@@ -21,6 +21,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 class Receiver extends ChannelInboundHandlerAdapter {
@@ -30,6 +31,7 @@ class Receiver extends ChannelInboundHandlerAdapter {
 	private final long id;
 	private final TCPManager manager;
 	private Throwable cause;
+	private boolean registered;
 
 	public Receiver(TCPManager manager, long id) {
 		this.id = id;
@@ -43,17 +45,24 @@ class Receiver extends ChannelInboundHandlerAdapter {
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
 
-		log.finest(String.format("Channel data available for id %d for %s -> %s",
-			this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Channel data available for id %d for %s -> %s",
+				this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
+		}
 
+		long received = System.nanoTime();
 		ByteBuf buffer = (ByteBuf)msg;
-		byte[] data = new byte[buffer.readableBytes()];
-		buffer.readBytes(data);
-		buffer.release();
-		this.manager.dataReceived(this.id, data);
+		int length = buffer.readableBytes();
+		try {
+			this.manager.dataReceived(this.id, buffer, received);
+		} finally {
+			buffer.release();
+		}
 
-		log.finer(String.format("Channel data (%d bytes) received for id %d for %s -> %s",
-			data.length, this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
+		if (log.isLoggable(Level.FINER)) {
+			log.finer(String.format("Channel data (%d bytes) received for id %d for %s -> %s",
+				length, this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
+		}
 	}
 
 	@Override
@@ -61,7 +70,9 @@ class Receiver extends ChannelInboundHandlerAdapter {
 		log.finer(String.format("Channel unregistering requested for id %d for %s -> %s",
 			this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
 
-		this.manager.connectionShutdown(this.id, this.cause);
+		if (this.registered) {
+			this.manager.connectionShutdown(this.id, this.cause);
+		}
 
 		log.finer(String.format("Channel unregistered for id %d for %s -> %s",
 			this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
@@ -73,12 +84,26 @@ class Receiver extends ChannelInboundHandlerAdapter {
 			this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
 
 		this.cause = null;
-		this.manager.register(this.id, ctx.channel(), false);
+		this.registered = this.manager.register(this.id, ctx.channel(), false);
+		if (!this.registered) {
+			// Connection is closed while its link was being established
+			ctx.close();
+			return;
+		}
 
 		log.finer(String.format("Channel registered for id %d for %s -> %s",
 			this.id, ctx.channel().localAddress(), ctx.channel().remoteAddress()));
 	}
 
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Channel writability changed to %b for id %d", ctx.channel().isWritable(), this.id));
+		}
+		this.manager.writabilityChanged(this.id);
+		super.channelWritabilityChanged(ctx);
+	}
+
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
 		this.addCause(cause);
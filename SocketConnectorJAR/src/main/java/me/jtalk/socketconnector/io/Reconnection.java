@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.util.AttributeKey;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound connection that is redialed whenever its link drops, keeping
+ * its ID. Its context stays registered while the link is down, so that
+ * the ID keeps resolving.
+ *
+ * Whoever moves the connection to the closed state while its link is down
+ * is responsible for unregistering it, since no link is left to report
+ * the shutdown.
+ */
+class Reconnection {
+
+	/**
+	 * Set on channels dialed for a reconnectable connection.
+	 */
+	static final AttributeKey<Reconnection> KEY = AttributeKey.valueOf(Reconnection.class, "reconnection");
+
+	private static final int DOWN = 0;
+	private static final int CONNECTED = 1;
+	private static final int CLOSED = 2;
+
+	final long id;
+	final InetSocketAddress target;
+
+	private final AtomicInteger state = new AtomicInteger(DOWN);
+	private int attempts;
+
+	Reconnection(long id, InetSocketAddress target) {
+		this.id = id;
+		this.target = target;
+	}
+
+	/**
+	 * @return Whether the link is registered, false if the connection is
+	 * closed meanwhile.
+	 */
+	boolean linkUp() {
+		if (!this.state.compareAndSet(DOWN, CONNECTED)) {
+			return false;
+		}
+		synchronized (this) {
+			this.attempts = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * @return Whether the link is to be redialed, false if the connection
+	 * is closed.
+	 */
+	boolean linkDown() {
+		return this.state.compareAndSet(CONNECTED, DOWN);
+	}
+
+	/**
+	 * @return Whether the link was down, so that the caller must unregister
+	 * the connection.
+	 */
+	boolean close() {
+		return this.state.getAndSet(CLOSED) == DOWN;
+	}
+
+	boolean isDown() {
+		return this.state.get() == DOWN;
+	}
+
+	boolean isClosed() {
+		return this.state.get() == CLOSED;
+	}
+
+	/**
+	 * Exponential backoff with jitter: the delay is drawn from the upper
+	 * half of the current backoff, so that connections dropped together do
+	 * not redial together.
+	 *
+	 * @return Delay before the next attempt in milliseconds.
+	 */
+	synchronized long nextDelay(long initial, long max) {
+		long backoff = Math.min(max, initial << Math.min(this.attempts, 30));
+		this.attempts++;
+		return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+}
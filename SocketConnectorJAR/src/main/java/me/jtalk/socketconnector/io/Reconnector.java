@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Redials dropped connections of a client with backoff. Connections whose
+ * delay has passed wait in a queue, so that no more than the limit of
+ * handshakes is in progress at once however many links drop together.
+ */
+class Reconnector {
+
+	private static final Logger log = Logger.getLogger(Reconnector.class.getName());
+
+	private final EventLoopGroup group;
+	private final Function<Reconnection, ChannelFuture> dialer;
+	private final TCPMetrics metrics;
+	private final long delay;
+	private final long maxDelay;
+	private final int limit;
+
+	private final Queue<Reconnection> ready = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger dialing = new AtomicInteger();
+
+	public Reconnector(EventLoopGroup group, Function<Reconnection, ChannelFuture> dialer, TCPMetrics metrics,
+			long delay, long maxDelay, int limit) {
+		this.group = group;
+		this.dialer = dialer;
+		this.metrics = metrics;
+		this.delay = delay;
+		this.maxDelay = maxDelay;
+		this.limit = limit;
+	}
+
+	void schedule(Reconnection connection) {
+		long next = connection.nextDelay(this.delay, this.maxDelay);
+		if (log.isLoggable(Level.FINER)) {
+			log.finer(String.format("Reconnection of id %d to %s in %d ms", connection.id, connection.target, next));
+		}
+		try {
+			this.group.schedule(() -> {
+				this.ready.add(connection);
+				this.drain();
+			}, next, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			log.log(Level.FINE, "Reconnection is not scheduled, client is closed", e);
+		}
+	}
+
+	private void drain() {
+		while (!this.ready.isEmpty()) {
+			int current = this.dialing.get();
+			if (current >= this.limit) {
+				// Whoever finishes dialing drains the rest
+				return;
+			}
+			if (!this.dialing.compareAndSet(current, current + 1)) {
+				continue;
+			}
+			Reconnection connection = this.ready.poll();
+			if (connection == null) {
+				this.dialing.decrementAndGet();
+				continue;
+			}
+			this.dial(connection);
+		}
+	}
+
+	private void dial(Reconnection connection) {
+		if (connection.isClosed()) {
+			this.dialing.decrementAndGet();
+			return;
+		}
+		this.metrics.reconnecting();
+		this.dialer.apply(connection).addListener(f -> {
+			this.dialing.decrementAndGet();
+			if (f.isSuccess()) {
+				this.metrics.reconnected();
+			} else if (!connection.isClosed()) {
+				log.log(Level.FINE, "Reconnection of id {0} to {1} failed: {2}",
+					new Object[] {connection.id, connection.target, f.cause()});
+				this.schedule(connection);
+			}
+			this.drain();
+		});
+	}
+}
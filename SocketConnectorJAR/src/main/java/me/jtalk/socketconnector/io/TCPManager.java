@@ -19,29 +19,58 @@ package me.jtalk.socketconnector.io;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import java.io.Closeable;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.ObjectName;
 import javax.resource.ResourceException;
 import javax.resource.spi.EISSystemException;
+import javax.resource.spi.RetryableUnavailableException;
 import me.jtalk.socketconnector.api.ConnectionClosedException;
+import me.jtalk.socketconnector.api.TCPMessage;
+import me.jtalk.socketconnector.api.TCPMessageImpl;
 import me.jtalk.socketconnector.SocketResourceAdapter;
 import me.jtalk.socketconnector.TCPActivationSpec;
 
@@ -49,92 +78,301 @@ public class TCPManager implements Closeable {
 
 	private static final Logger log = Logger.getLogger(TCPManager.class.getName());
 	private static final long SHUTDOWN_TIMEOUT_SEC = 60;
+	private static final int FILE_CHUNK_SIZE = 65536;
 
-	private SocketResourceAdapter parent;
+	private volatile SocketResourceAdapter parent;
 	private final long id;
 
+	private final Transport transport;
 	private final EventLoopGroup listeners;
+	private final List<EventLoop> listenerLoops = new ArrayList<>();
 	private final EventLoopGroup workers;
+	private final int acceptors;
 	private final ServerBootstrap server;
 	private final Bootstrap client;
-
-	private final ConcurrentHashMap<Long, ConnectionContext> connections = new ConcurrentHashMap<>();
-	private final AtomicLong ids = new AtomicLong(0);
-
-	public TCPManager(SocketResourceAdapter parent, long id, TCPActivationSpec spec) throws ResourceException {
+	private final ByteBufAllocator allocator;
+	private final ObjectName allocatorMetricsName;
+	private final boolean zeroCopyReceive;
+	private final boolean recycleMessages;
+	private final Supplier<ChannelHandler> frameDecoders;
+	private final Map<EventExecutor, InboundBatch> batches = new IdentityHashMap<>();
+	private volatile boolean batchDelivery;
+	private final Executor deliveryExecutor;
+	private final int deliveryQueueDepth;
+	private final int batchSize;
+	private final WriteBufferWaterMark writeBufferWaterMark;
+	private final int writeQueueCapacity;
+	private final int connectConcurrency;
+	private final Reconnector reconnector;
+	private final WriteQueueMetrics writeQueueMetrics;
+	private final ObjectName writeQueueMetricsName;
+
+	private final ConnectionRegistry<ConnectionContext> connections = new ConnectionRegistry<>();
+	private final TCPMetrics metrics;
+	private final ObjectName metricsName;
+
+	/**
+	 * Creates manager for a client.
+	 *
+	 * @param parent Resource adapter to notify of inbound events.
+	 * @param id Client ID.
+	 * @param spec Client configuration.
+	 * @param deliveryExecutor Executor to run endpoint deliveries on if they
+	 * are offloaded from event loops.
+	 * @throws ResourceException if manager cannot be initialized.
+	 */
+	public TCPManager(SocketResourceAdapter parent, long id, TCPActivationSpec spec, Executor deliveryExecutor) throws ResourceException {
 
 		this.parent = parent;
 		this.id = id;
+		this.deliveryExecutor = spec.getOffloadDelivery() ? deliveryExecutor : null;
+		this.deliveryQueueDepth = spec.getDeliveryQueueDepth();
+		this.batchSize = spec.getBatchSize();
+		this.writeBufferWaterMark = new WriteBufferWaterMark(spec.getWriteBufferLowWaterMark(), spec.getWriteBufferHighWaterMark());
+		this.connectConcurrency = spec.getConnectConcurrency();
+
+		this.transport = Transport.select(spec.getTransport());
+		log.info(String.format("TCP manager for client %d is using %s transport", id, this.transport));
 
 		ThreadFactory factory = new DaemonThreadFactory();
-		this.listeners = new NioEventLoopGroup(spec.getListnerThreadsCount(), factory);
-		this.workers = new NioEventLoopGroup(spec.getReceiverThreadsCount(), factory);
+		this.listeners = this.transport.newEventLoopGroup(spec.getListnerThreadsCount(), factory);
+		for (EventExecutor loop : this.listeners) {
+			this.listenerLoops.add((EventLoop)loop);
+		}
+		this.workers = this.transport.newEventLoopGroup(spec.getReceiverThreadsCount(), factory);
+		if (spec.getReusePort() && !this.transport.supportsReusePort()) {
+			log.warning(String.format("SO_REUSEPORT is not supported by %s transport, TCP listeners of client %d are not sharded",
+				this.transport, id));
+		}
+		this.acceptors = spec.getReusePort() && this.transport.supportsReusePort() ? this.listenerLoops.size() : 1;
+		this.metrics = new TCPMetrics(this.connections, this.workers);
+		this.metricsName = Metrics.register(Metrics.name("TCP", this.id), this.metrics);
+
+		this.allocator = Allocators.create(spec.getAllocator(), spec.getPreferDirect(),
+			spec.getAllocatorArenas(), spec.getAllocatorChunkSize());
+		this.allocatorMetricsName = Metrics.register(Metrics.name("Allocator", this.id), new AllocatorMetrics(this.allocator));
+
+		if (spec.getCoalesceWrites()) {
+			this.writeQueueCapacity = spec.getWriteQueueCapacity();
+			this.writeQueueMetrics = new WriteQueueMetrics();
+			this.writeQueueMetricsName = Metrics.register(Metrics.name("WriteQueue", this.id), this.writeQueueMetrics);
+		} else {
+			this.writeQueueCapacity = 0;
+			this.writeQueueMetrics = null;
+			this.writeQueueMetricsName = null;
+		}
 
+		this.zeroCopyReceive = spec.getZeroCopyReceive();
+		this.recycleMessages = spec.getRecycleMessages();
+		this.frameDecoders = Framing.forName(spec.getFraming()).decoders(spec);
 		this.server = this.instantiateServer(spec);
-		this.client = this.instantiateClient();
+		this.client = this.instantiateClient(spec);
+		this.reconnector = spec.getReconnect()
+			? new Reconnector(this.workers, this::dial, this.metrics,
+				spec.getReconnectDelay(), spec.getReconnectMaxDelay(), spec.getReconnectConcurrency())
+			: null;
+
+		for (EventExecutor loop : this.workers) {
+			this.batches.put(loop, new InboundBatch(this, (EventLoop)loop, spec.getBatchSize(), spec.getBatchLinger()));
+		}
+	}
+
+	/**
+	 * Enables accumulation of inbound messages for batch listeners. Messages
+	 * are delivered to regular listeners regardless of this setting.
+	 *
+	 * @param enabled Whether batch listeners are activated for this client.
+	 */
+	public void setBatchDelivery(boolean enabled) {
+		this.batchDelivery = enabled;
+	}
+
+	public boolean isBatchDelivery() {
+		return this.batchDelivery;
 	}
 
 	public long connect(InetSocketAddress target) throws ResourceException {
-		try {
-			log.finest(String.format("Connection initialization to %s: starting", target));
+		return this.await(this.connectAsync(target), "Execution interrupted during connecting to remote client");
+	}
 
-			ChannelFuture completed = this.client.connect(target).sync();
-			if (!completed.isSuccess()) {
-				throw new EISSystemException("Connection failed", completed.cause());
+	/**
+	 * Starts connecting without blocking the caller. The result is completed
+	 * on an I/O thread once the connection is registered, dependent stages
+	 * run there unless given an executor and must not block.
+	 *
+	 * @param target Address to connect to.
+	 * @return ID of the connection established.
+	 */
+	public CompletableFuture<Long> connectAsync(InetSocketAddress target) {
+		log.finest(String.format("Connection initialization to %s: starting", target));
+
+		CompletableFuture<Long> result = new CompletableFuture<>();
+		Reconnection reconnection = this.reconnector == null
+			? null
+			: new Reconnection(this.connections.reserve(), target);
+		ChannelFuture connecting = reconnection == null
+			? this.client.connect(target)
+			: this.dial(reconnection);
+		connecting.addListener(f -> {
+			if (!f.isSuccess()) {
+				if (reconnection != null) {
+					// Only established connections are redialed
+					reconnection.close();
+					this.connections.remove(reconnection.id);
+				}
+				result.completeExceptionally(new EISSystemException("Connection failed", f.cause()));
+				return;
 			}
-			Receiver handler = completed.channel().pipeline().get(Receiver.class);
-			long connId = handler.getId();
-
-			return connId;
+			Channel channel = connecting.channel();
+			long connId = channel.pipeline().get(Receiver.class).getId();
+			// The connect future completes right before channelActive registers
+			// the connection, complete the result once the event loop gets past it
+			try {
+				channel.eventLoop().execute(() -> result.complete(connId));
+			} catch (RejectedExecutionException e) {
+				result.completeExceptionally(new EISSystemException("Client is closed", e));
+			}
+		});
+		return result;
+	}
 
-		} catch (InterruptedException e) {
-			throw new EISSystemException("Execution interrupted during connecting to remote client", e);
+	/**
+	 * Connects to all the targets, keeping at most connectConcurrency
+	 * attempts in progress at once. Each attempt fails on its own, without
+	 * affecting the rest.
+	 *
+	 * @param targets Addresses to connect to.
+	 * @return IDs of the connections established, in the order of targets.
+	 */
+	public List<CompletableFuture<Long>> connectAll(List<InetSocketAddress> targets) {
+		List<InetSocketAddress> pending = new ArrayList<>(targets);
+		List<CompletableFuture<Long>> results = new ArrayList<>(pending.size());
+		for (int i = 0; i < pending.size(); i++) {
+			results.add(new CompletableFuture<>());
+		}
+		AtomicInteger next = new AtomicInteger();
+		int started = Math.min(this.connectConcurrency, pending.size());
+		for (int i = 0; i < started; i++) {
+			this.connectNext(pending, results, next);
 		}
+		return results;
 	}
 
 	public long listen(InetSocketAddress local) throws ResourceException {
-		try {
-			log.finest(String.format("Listening to %s: starting", local));
-
-			ChannelFuture completed = this.server.bind(local).sync();
-			if (!completed.isSuccess()) {
-				throw new EISSystemException("Listening failed", completed.cause());
-			}
-			long connId = this.ids.incrementAndGet();
-
-			log.finest(String.format("Listening to %s: connection id %d", local, connId));
-			this.register(connId, completed.channel(), true);
+		return this.await(this.listenAsync(local), "Execution interrupted during listening setup");
+	}
 
-			return connId;
+	/**
+	 * Starts listening without blocking the caller. The result is completed
+	 * on an I/O thread, dependent stages run there unless given an executor
+	 * and must not block.
+	 *
+	 * With SO_REUSEPORT enabled, a server channel is bound to the same
+	 * address for each listener event loop, and the kernel spreads incoming
+	 * connections among them. All of them are represented by a single ID,
+	 * closing it closes them all.
+	 *
+	 * @param local Address to listen to.
+	 * @return ID of the listening connection.
+	 */
+	public CompletableFuture<Long> listenAsync(InetSocketAddress local) {
+		log.finest(String.format("Listening to %s: starting %d acceptors", local, this.acceptors));
+
+		CompletableFuture<Long> result = new CompletableFuture<>();
+		this.bindAcceptor(local, new Channel[this.acceptors], 0, result);
+		return result;
+	}
 
-		} catch (InterruptedException e) {
-			throw new EISSystemException("Execution interrupted during listening setup", e);
+	public void send(long id, ByteBuffer data) throws ResourceException {
+		ConnectionContext ctx = this.getContext(id);
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Data sending to id %d, %d bytes", id, data.remaining()));
 		}
+		long start = System.nanoTime();
+		this.send(ctx, Buffers.toByteBuf(ctx.channel.alloc(), data), start);
 	}
 
-	public void send(long id, ByteBuffer data) throws ResourceException {
-		ConnectionContext ctx = this.connections.get(id);
-		if (ctx == null) {
-			throw new ConnectionClosedException("Connection is closed");
+	public void send(long id, ByteBuffer... data) throws ResourceException {
+		ConnectionContext ctx = this.getContext(id);
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Data sending to id %d, %d buffers", id, data.length));
 		}
+		long start = System.nanoTime();
+		this.send(ctx, Buffers.toByteBuf(ctx.channel.alloc(), data), start);
+	}
+
+	public CompletableFuture<Void> sendAsync(long id, ByteBuffer data) throws ResourceException {
+		ConnectionContext ctx = this.getContext(id);
 		Channel output = ctx.channel;
-		log.finest(String.format("Data sending to id %d, %d bytes", id, data.remaining()));
-		output.writeAndFlush(Unpooled.wrappedBuffer(data)).addListener(f -> {
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Data sending to id %d, %d bytes, asynchronously", id, data.remaining()));
+		}
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		long start = System.nanoTime();
+		ByteBuf buffer = Buffers.toByteBuf(output.alloc(), data);
+		int length = buffer.readableBytes();
+		this.write(ctx, buffer).addListener(f -> {
+			this.writeCompleted(f, start);
 			if (f.isSuccess()) {
-				log.finest(String.format("Data sent to id %d", id));
+				result.complete(null);
 			} else {
 				log.log(Level.FINE, "Error while sending data to id {0}: {1}", new Object[] {id, f.cause()});
+				this.metrics.sendFailed();
+				result.completeExceptionally(sendingFailure(f.cause()));
 			}
 		});
+		this.metrics.sent(length);
+		return result;
+	}
+
+	public CompletableFuture<Void> sendFile(long id, Path file, long offset, long length) throws ResourceException {
+		ConnectionContext ctx = this.getContext(id);
+		log.finest(String.format("File %s sending to id %d, %d bytes from %d", file, id, length, offset));
+		Object message = this.openFile(file, offset, length);
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		long start = System.nanoTime();
+		this.write(ctx, message).addListener(f -> {
+			this.writeCompleted(f, start);
+			if (f.isSuccess()) {
+				result.complete(null);
+			} else {
+				log.log(Level.FINE, "Error while sending file to id {0}: {1}", new Object[] {id, f.cause()});
+				this.metrics.sendFailed();
+				result.completeExceptionally(sendingFailure(f.cause()));
+			}
+		});
+		this.metrics.sent(length);
+		return result;
+	}
+
+	public boolean isWritable(long id) throws ResourceException {
+		return this.getContext(id).channel.isWritable();
+	}
+
+	public CompletableFuture<Void> whenWritable(long id) throws ResourceException {
+		return this.getContext(id).whenWritable();
 	}
 
 	public boolean close(long id) {
 		log.finest(String.format("Connection closing for id %d: requested", id));
-		final ConnectionContext ctx = this.connections.get(id);
+		ConnectionContext ctx = this.connections.get(id);
 		if (ctx == null) {
 			log.finest(String.format("Connection closing for id %d: no context", id));
 			return false;
 		}
+		if (ctx.reconnection != null) {
+			if (ctx.reconnection.close()) {
+				// The link is down, there is nothing left to report the shutdown
+				this.closeUnlinked(id, ctx);
+				return true;
+			}
+			// A link marked up is registered already, it may be newer than
+			// the one looked up
+			ConnectionContext current = this.connections.get(id);
+			if (current != null) {
+				ctx = current;
+			}
+		}
 		ctx.channel.disconnect().addListener(f -> {
 			if (!f.isSuccess()) {
 				TCPManager.log.log(Level.SEVERE, "Disconnection failed due to error", f.cause());
@@ -152,34 +390,108 @@ public class TCPManager implements Closeable {
 
 		this.listeners.shutdownGracefully(0, SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
 		this.workers.shutdownGracefully(0, SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
-		this.connections.clear();
+		Metrics.unregister(this.allocatorMetricsName);
+		Metrics.unregister(this.writeQueueMetricsName);
+		Metrics.unregister(this.metricsName);
 		this.parent = null;
 
 		log.finest("TCPManager successfuly closed");
 	}
 
 	public boolean isListening(long id) throws ResourceException {
-		ConnectionContext ctx = this.connections.get(id);
-		if (ctx == null) {
-			throw new ConnectionClosedException("Connection is closed");
-		}
-		return ctx.listening;
+		return this.getContext(id).listening;
 	}
 
-	void register(long id, Channel channel, boolean listening) {
+	/**
+	 * @return Whether the connection is registered, false if it is closed
+	 * before its link is established.
+	 */
+	boolean register(long id, Channel channel, boolean listening) {
 
 		log.finest(String.format("Connection established for id %d: creating new context", id));
-		ConnectionContext context = new ConnectionContext(channel, channel.localAddress(), channel.remoteAddress(), listening);
+		Reconnection reconnection = listening ? null : channel.attr(Reconnection.KEY).get();
+		if (reconnection != null && reconnection.isClosed()) {
+			log.finest(String.format("Connection established for id %d: closed meanwhile", id));
+			return false;
+		}
+		ConnectionContext previous = reconnection == null ? null : this.connections.get(id);
+		DeliveryQueue delivery = this.deliveryExecutor == null || listening
+			? null
+			: new DeliveryQueue(this, channel, this.deliveryExecutor, this.deliveryQueueDepth, this.batchSize);
+		WriteQueue writes = this.writeQueueMetrics == null || listening
+			? null
+			: new WriteQueue(channel, this.writeQueueCapacity, this.writeQueueMetrics);
+		// Shared by all sends of the connection, so that sending allocates no listener
+		ChannelFutureListener sendListener = f -> {
+			if (f.isSuccess()) {
+				if (log.isLoggable(Level.FINEST)) {
+					log.finest(String.format("Data sent to id %d", id));
+				}
+			} else {
+				log.log(Level.FINE, "Error while sending data to id {0}: {1}", new Object[] {id, f.cause()});
+				this.metrics.sendFailed();
+			}
+		};
+		ConnectionContext context = new ConnectionContext(channel, channel.localAddress(), channel.remoteAddress(), listening,
+			delivery, writes, sendListener, reconnection);
 
-		this.connections.put(id, context);
+		if (!this.connections.put(id, context)) {
+			return false;
+		}
+		// The link is marked up only once its context is registered: sends
+		// are retryable until then instead of going to the previous link
+		if (reconnection != null && !reconnection.linkUp()) {
+			// Closed while the link was down, the context is unregistered by
+			// whoever closed it
+			log.finest(String.format("Connection established for id %d: closed meanwhile", id));
+			return false;
+		}
+		this.metrics.opened(listening);
+		if (previous != null) {
+			context.adopt(previous);
+		}
 
 		log.finest(String.format("Connection established for id %d: connection added", id));
+		return true;
 	}
 
 	// Receiver callbacks
 	void connectionShutdown(long id, Throwable cause) {
 
+		ConnectionContext current = this.connections.get(id);
+		// Links are not redialed once the client is closing
+		if (current != null && current.reconnection != null && !this.workers.isShuttingDown()
+			&& current.reconnection.linkDown()) {
+			log.finest(String.format("Connection lost for id %d: reconnecting", id));
+			this.metrics.closed(false);
+			this.shutdown(id, current, cause, true);
+			this.reconnector.schedule(current.reconnection);
+			return;
+		}
 		ConnectionContext ctx = this.connections.remove(id);
+		if (ctx != null) {
+			this.metrics.closed(false);
+		}
+		this.shutdown(id, ctx, cause, false);
+	}
+
+	/**
+	 * Notifies endpoints of a link shutdown once the data received before
+	 * it is delivered.
+	 */
+	private void shutdown(long id, ConnectionContext ctx, Throwable cause, boolean reconnecting) {
+		if (ctx != null) {
+			ctx.writabilityChanged();
+		}
+		if (ctx != null && ctx.delivery != null) {
+			// Notify after all the data queued is delivered
+			ctx.delivery.add(() -> this.shutdownReceived(id, ctx.local, ctx.remote, cause, reconnecting));
+			return;
+		}
+		if (ctx != null && this.batchDelivery) {
+			// Deliver data received before the disconnection notification
+			this.batches.get(ctx.channel.eventLoop()).flush();
+		}
 
 		SocketAddress local = null;
 		SocketAddress remote = null;
@@ -187,56 +499,371 @@ public class TCPManager implements Closeable {
 			local = ctx.local;
 			remote = ctx.remote;
 		}
-		this.parent.notifyShutdown(this.id, id, local, remote, cause);
+		this.shutdownReceived(id, local, remote, cause, reconnecting);
 	}
 
-	void dataReceived(long id, byte[] data) {
+	/**
+	 * Unregisters a reconnectable connection closed while its link is down.
+	 * Runs on the event loop of its last link, as link shutdowns do.
+	 */
+	private void closeUnlinked(long id, ConnectionContext ctx) {
+		try {
+			ctx.channel.eventLoop().execute(() -> {
+				ConnectionContext removed = this.connections.remove(id);
+				if (removed != null) {
+					log.finest(String.format("Connection closing for id %d: closed while reconnecting", id));
+					this.shutdown(id, removed, null, false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.log(Level.FINE, "Connection closing for id {0}: client is closed", id);
+		}
+	}
+
+	void dataReceived(long id, ByteBuf data, long receiveTimestamp) {
 		ConnectionContext ctx = this.connections.get(id);
 		if (ctx == null) {
 			// Drop data from closed connection
-			log.finest(String.format("No context for id %s", id));
+			if (log.isLoggable(Level.FINEST)) {
+				log.finest(String.format("No context for id %s", id));
+			}
 			return;
 		}
-		log.finest(String.format("Context for id %s found, data will be received", id));
-		this.parent.notifyReceived(this.id, id, data, ctx.local, ctx.remote);
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Context for id %s found, data will be received", id));
+		}
+		this.metrics.received(data.readableBytes());
+		TCPMessage message = this.zeroCopyReceive
+			? PooledTCPMessage.newInstance(this.recycleMessages, id, ctx.remote, ctx.local, data, receiveTimestamp)
+			: new TCPMessageImpl(id, ctx.remote, ctx.local, ByteBufUtil.getBytes(data), receiveTimestamp);
+		try {
+			if (ctx.delivery != null) {
+				ctx.delivery.add(message);
+				return;
+			}
+			this.deliver(message);
+			if (this.batchDelivery) {
+				this.batches.get(ctx.channel.eventLoop()).add(message);
+			}
+		} finally {
+			// Queues and batches hold their own references
+			ReferenceCountUtil.release(message);
+		}
+	}
+
+	void writabilityChanged(long id) {
+		ConnectionContext ctx = this.connections.get(id);
+		if (ctx != null) {
+			ctx.writabilityChanged();
+		}
+	}
+
+	void deliver(TCPMessage message) {
+		SocketResourceAdapter local = this.parent;
+		if (local != null) {
+			long start = System.nanoTime();
+			// Only messages some endpoint has seen are dispatched
+			if (local.notifyReceived(this.id, message)) {
+				this.metrics.dispatching(message.getReceiveTimestamp(), start);
+				this.metrics.dispatched(1, System.nanoTime() - start);
+			}
+		}
+	}
+
+	void batchReceived(List<TCPMessage> messages) {
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Batch of %d messages will be received", messages.size()));
+		}
+		SocketResourceAdapter local = this.parent;
+		if (local != null) {
+			long start = System.nanoTime();
+			if (local.notifyReceived(this.id, messages)) {
+				long nanos = System.nanoTime() - start;
+				for (TCPMessage message : messages) {
+					this.metrics.dispatching(message.getReceiveTimestamp(), start);
+				}
+				this.metrics.dispatched(messages.size(), nanos);
+			}
+		}
+	}
+
+	private void send(ConnectionContext ctx, ByteBuf buffer, long start) throws ResourceException {
+		int length = buffer.readableBytes();
+		ChannelFuture written = this.write(ctx, buffer).addListener(ctx.sendListener);
+		if (this.metrics.sampleWrite()) {
+			written.addListener(f -> this.writeCompleted(f, start));
+		}
+		this.metrics.sent(length);
+	}
+
+	private void writeCompleted(Future<?> future, long start) {
+		if (future.isSuccess()) {
+			this.metrics.written(System.nanoTime() - start);
+		}
+	}
+
+	private void shutdownReceived(long id, SocketAddress local, SocketAddress remote, Throwable cause, boolean reconnecting) {
+		SocketResourceAdapter adapter = this.parent;
+		if (adapter != null) {
+			adapter.notifyShutdown(this.id, id, local, remote, cause, reconnecting);
+		}
 	}
 
 	private ServerBootstrap instantiateServer(TCPActivationSpec spec) throws ResourceException {
 
+		// Event loops are set per binding, see bindAcceptor
 		ServerBootstrap newServer = new ServerBootstrap();
-		newServer.group(this.listeners, this.workers);
-		newServer.channel(NioServerSocketChannel.class);
+		newServer.channel(this.transport.serverChannel());
 		newServer.childHandler(new ChannelInitializer<SocketChannel>() {
 
 			@Override
 			protected void initChannel(SocketChannel c) throws Exception {
-				c.pipeline()
-					.addLast(new Receiver(TCPManager.this, TCPManager.this.ids.incrementAndGet()))
-					.addLast(new Sender());
+				TCPManager.this.initPipeline(c);
 			}
 		});
 		newServer.option(ChannelOption.SO_KEEPALIVE, true);
 		newServer.option(ChannelOption.SO_BACKLOG, spec.getBacklog());
 		newServer.option(ChannelOption.TCP_NODELAY, true);
+		newServer.option(ChannelOption.ALLOCATOR, this.allocator);
+		newServer.childOption(ChannelOption.ALLOCATOR, this.allocator);
+		newServer.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, this.writeBufferWaterMark);
+		if (this.acceptors > 1) {
+			newServer.option(UnixChannelOption.SO_REUSEPORT, true);
+		}
 
 		return newServer;
 	}
 
-	private Bootstrap instantiateClient() {
+	private Bootstrap instantiateClient(TCPActivationSpec spec) {
 		Bootstrap newClient = new Bootstrap();
 		newClient.group(this.workers);
-		newClient.channel(NioSocketChannel.class);
+		newClient.channel(this.transport.clientChannel());
 		newClient.handler(new ChannelInitializer<SocketChannel>() {
 
 			@Override
 			protected void initChannel(SocketChannel ch) throws Exception {
-				ch.pipeline()
-					.addLast(new Receiver(TCPManager.this, TCPManager.this.ids.incrementAndGet()))
-					.addLast(new Sender());
+				TCPManager.this.initPipeline(ch);
 			}
 		});
 		newClient.option(ChannelOption.SO_KEEPALIVE, true);
+		newClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, spec.getConnectTimeout());
+		newClient.option(ChannelOption.ALLOCATOR, this.allocator);
+		newClient.option(ChannelOption.WRITE_BUFFER_WATER_MARK, this.writeBufferWaterMark);
 
 		return newClient;
 	}
+
+	/**
+	 * Binds acceptors one after another, so that the rest share the port of
+	 * the first one even if an ephemeral one is requested.
+	 */
+	private void bindAcceptor(SocketAddress local, Channel[] acceptors, int index, CompletableFuture<Long> result) {
+		// Acceptors are pinned to listener loops of their own, round robin
+		// would let concurrent listenings put several on the same loop
+		EventLoopGroup loop = acceptors.length > 1 ? this.listenerLoops.get(index) : this.listeners;
+		ChannelFuture binding = this.server.clone().group(loop, this.workers).bind(local);
+		binding.addListener(f -> {
+			if (!f.isSuccess()) {
+				closeAll(acceptors);
+				result.completeExceptionally(new EISSystemException("Listening failed", f.cause()));
+				return;
+			}
+			acceptors[index] = binding.channel();
+			if (index + 1 < acceptors.length) {
+				this.bindAcceptor(acceptors[0].localAddress(), acceptors, index + 1, result);
+				return;
+			}
+			long connId = this.connections.reserve();
+
+			log.finest(String.format("Listening to %s: connection id %d", local, connId));
+			this.register(connId, acceptors[0], true);
+			for (Channel acceptor : acceptors) {
+				acceptor.closeFuture().addListener(c -> {
+					closeAll(acceptors);
+					if (this.connections.remove(connId) != null) {
+						this.metrics.closed(true);
+					}
+				});
+			}
+			result.complete(connId);
+		});
+	}
+
+	/**
+	 * Connects a link of a reconnectable connection, its channel is
+	 * registered with the connection ID.
+	 */
+	private ChannelFuture dial(Reconnection reconnection) {
+		return this.client.clone()
+			.attr(Reconnection.KEY, reconnection)
+			.connect(reconnection.target);
+	}
+
+	private void connectNext(List<InetSocketAddress> targets, List<CompletableFuture<Long>> results, AtomicInteger next) {
+		int index = next.getAndIncrement();
+		if (index >= targets.size()) {
+			return;
+		}
+		CompletableFuture<Long> result = results.get(index);
+		this.connectAsync(targets.get(index)).whenComplete((connId, e) -> {
+			if (e == null) {
+				result.complete(connId);
+			} else {
+				result.completeExceptionally(e);
+			}
+			// Started from a task rather than recursively, so that a run of
+			// attempts failing at once does not grow the stack
+			try {
+				this.workers.execute(() -> this.connectNext(targets, results, next));
+			} catch (RejectedExecutionException rejected) {
+				for (int i = next.getAndSet(targets.size()); i < targets.size(); i++) {
+					results.get(i).completeExceptionally(new EISSystemException("Client is closed", rejected));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits for a connection or listening setup. If the caller is interrupted,
+	 * the connection is closed once established, since nobody knows its ID.
+	 */
+	private long await(CompletableFuture<Long> future, String interruption) throws ResourceException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.thenAccept(this::close);
+			throw new EISSystemException(interruption, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ResourceException) {
+				throw (ResourceException)cause;
+			}
+			throw new EISSystemException("Unexpected failure", cause);
+		}
+	}
+
+	private ConnectionContext getContext(long id) throws ConnectionClosedException {
+		ConnectionContext ctx = this.connections.get(id);
+		if (ctx == null) {
+			throw new ConnectionClosedException("Connection is closed");
+		}
+		return ctx;
+	}
+
+	/**
+	 * Writes and flushes data either through the connection's write queue,
+	 * if writes are coalesced, or directly.
+	 */
+	private ChannelFuture write(ConnectionContext ctx, Object data) throws ResourceException {
+		if (ctx.reconnection != null && (ctx.reconnection.isDown() || !ctx.channel.isActive())) {
+			// Either no link is up or the context looked up is of a link
+			// replaced meanwhile
+			discard(data);
+			throw new RetryableUnavailableException("Connection is being reconnected");
+		}
+		if (ctx.writes == null) {
+			return ctx.channel.writeAndFlush(data);
+		}
+		ChannelPromise promise = ctx.channel.newPromise();
+		if (!ctx.writes.add(data, promise)) {
+			discard(data);
+			throw new RetryableUnavailableException("Write queue is full");
+		}
+		return promise;
+	}
+
+	/**
+	 * File is sent with sendfile if the transport allows, and read in chunks
+	 * to pooled buffers otherwise. Both ways it is never loaded to heap as
+	 * a whole. File channel is closed once sending is done.
+	 */
+	private Object openFile(Path file, long offset, long length) throws ResourceException {
+		if (offset < 0 || length < 0) {
+			throw new ResourceException("File offset and length must not be negative");
+		}
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			if (offset + length > channel.size()) {
+				throw new ResourceException(String.format("File %s is shorter than %d bytes", file, offset + length));
+			}
+			return this.transport.supportsFileRegion()
+				? new DefaultFileRegion(channel, offset, length)
+				: new ChunkedNioFile(channel, offset, length, FILE_CHUNK_SIZE);
+		} catch (IOException e) {
+			closeQuietly(channel);
+			throw new EISSystemException(String.format("File %s cannot be opened", file), e);
+		} catch (ResourceException e) {
+			closeQuietly(channel);
+			throw e;
+		}
+	}
+
+	private void initPipeline(SocketChannel c) {
+		if (this.frameDecoders != null) {
+			c.pipeline().addLast(this.frameDecoders.get());
+		}
+		Reconnection reconnection = c.attr(Reconnection.KEY).get();
+		long connId;
+		if (reconnection != null) {
+			// The slot is held by the connection across its links
+			connId = reconnection.id;
+		} else {
+			connId = this.connections.reserve();
+			// Frees the slot of a channel closed before it became active, the
+			// context of an active one is removed on its shutdown notification
+			c.closeFuture().addListener(f -> {
+				if (this.connections.get(connId) == null) {
+					this.connections.remove(connId);
+				}
+			});
+		}
+		c.pipeline()
+			.addLast(new Receiver(this, connId))
+			.addLast(new Sender());
+		if (!this.transport.supportsFileRegion()) {
+			c.pipeline().addLast(new ChunkedWriteHandler());
+		}
+	}
+
+	/**
+	 * Releases a message that was never written.
+	 */
+	static void discard(Object message) {
+		if (message instanceof ChunkedInput) {
+			try {
+				((ChunkedInput<?>)message).close();
+			} catch (Exception e) {
+				log.log(Level.FINE, "Discarded chunked input closing failed", e);
+			}
+		} else {
+			ReferenceCountUtil.release(message);
+		}
+	}
+
+	private static void closeAll(Channel[] channels) {
+		for (Channel channel : channels) {
+			if (channel != null) {
+				channel.close();
+			}
+		}
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			log.log(Level.FINE, "File closing failed", e);
+		}
+	}
+
+	private static ResourceException sendingFailure(Throwable cause) {
+		if (cause instanceof ClosedChannelException) {
+			return new ConnectionClosedException("Connection is closed", cause);
+		}
+		return new EISSystemException("Sending failed", cause);
+	}
 }
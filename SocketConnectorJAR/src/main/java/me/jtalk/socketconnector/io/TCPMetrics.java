@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters are updated from event loops and sending threads, gauges are
+ * only computed when read.
+ */
+class TCPMetrics implements TCPMetricsMXBean {
+
+	/**
+	 * One of this many send calls without a future has its write latency
+	 * measured, so that the rest need no listener of their own.
+	 */
+	private static final int WRITE_SAMPLING = 64;
+
+	private final ConnectionRegistry<ConnectionContext> connections;
+	private final EventLoopGroup workers;
+
+	private final LongAdder connectionCount = new LongAdder();
+	private final LongAdder listenerCount = new LongAdder();
+	private final LongAdder receivedMessages = new LongAdder();
+	private final LongAdder receivedBytes = new LongAdder();
+	private final LongAdder sentMessages = new LongAdder();
+	private final LongAdder sentBytes = new LongAdder();
+	private final LongAdder sendFailures = new LongAdder();
+	private final LongAdder reconnectAttempts = new LongAdder();
+	private final LongAdder reconnects = new LongAdder();
+	private final LongAdder dispatchedMessages = new LongAdder();
+	private final LatencyHistogram queueLatency = new LatencyHistogram();
+	private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+	private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+	public TCPMetrics(ConnectionRegistry<ConnectionContext> connections, EventLoopGroup workers) {
+		this.connections = connections;
+		this.workers = workers;
+	}
+
+	void opened(boolean listening) {
+		(listening ? this.listenerCount : this.connectionCount).increment();
+	}
+
+	void closed(boolean listening) {
+		(listening ? this.listenerCount : this.connectionCount).decrement();
+	}
+
+	void received(int bytes) {
+		this.receivedMessages.increment();
+		this.receivedBytes.add(bytes);
+	}
+
+	void sent(long bytes) {
+		this.sentMessages.increment();
+		this.sentBytes.add(bytes);
+	}
+
+	void sendFailed() {
+		this.sendFailures.increment();
+	}
+
+	void reconnecting() {
+		this.reconnectAttempts.increment();
+	}
+
+	void reconnected() {
+		this.reconnects.increment();
+	}
+
+	void dispatching(long receiveTimestamp, long start) {
+		// Messages of unknown receive time have no queue latency
+		if (receiveTimestamp != 0) {
+			this.queueLatency.record(start - receiveTimestamp);
+		}
+	}
+
+	void dispatched(int messages, long nanos) {
+		this.dispatchedMessages.add(messages);
+		this.dispatchLatency.record(nanos);
+	}
+
+	boolean sampleWrite() {
+		return ThreadLocalRandom.current().nextInt(WRITE_SAMPLING) == 0;
+	}
+
+	void written(long nanos) {
+		this.writeLatency.record(nanos);
+	}
+
+	@Override
+	public long getConnections() {
+		return this.connectionCount.sum();
+	}
+
+	@Override
+	public long getListeners() {
+		return this.listenerCount.sum();
+	}
+
+	@Override
+	public long getReceivedMessages() {
+		return this.receivedMessages.sum();
+	}
+
+	@Override
+	public long getReceivedBytes() {
+		return this.receivedBytes.sum();
+	}
+
+	@Override
+	public long getSentMessages() {
+		return this.sentMessages.sum();
+	}
+
+	@Override
+	public long getSentBytes() {
+		return this.sentBytes.sum();
+	}
+
+	@Override
+	public long getSendFailures() {
+		return this.sendFailures.sum();
+	}
+
+	@Override
+	public long getReconnectAttempts() {
+		return this.reconnectAttempts.sum();
+	}
+
+	@Override
+	public long getReconnects() {
+		return this.reconnects.sum();
+	}
+
+	@Override
+	public long getPendingOutboundBytes() {
+		LongAdder result = new LongAdder();
+		this.connections.forEach(ctx -> {
+			ChannelOutboundBuffer buffer = ctx.channel.unsafe().outboundBuffer();
+			if (buffer != null) {
+				result.add(buffer.totalPendingWriteBytes());
+			}
+		});
+		return result.sum();
+	}
+
+	@Override
+	public long getDispatches() {
+		return this.dispatchLatency.getCount();
+	}
+
+	@Override
+	public long getDispatchedMessages() {
+		return this.dispatchedMessages.sum();
+	}
+
+	@Override
+	public long getQueueLatencyMean() {
+		return this.queueLatency.getMean();
+	}
+
+	@Override
+	public long getQueueLatencyMedian() {
+		return this.queueLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getQueueLatency99thPercentile() {
+		return this.queueLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getQueueLatency999thPercentile() {
+		return this.queueLatency.getPercentile(0.999);
+	}
+
+	@Override
+	public long getQueueLatencyMax() {
+		return this.queueLatency.getMax();
+	}
+
+	@Override
+	public long getDispatchLatencyMean() {
+		return this.dispatchLatency.getMean();
+	}
+
+	@Override
+	public long getDispatchLatencyMedian() {
+		return this.dispatchLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getDispatchLatency99thPercentile() {
+		return this.dispatchLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getDispatchLatency999thPercentile() {
+		return this.dispatchLatency.getPercentile(0.999);
+	}
+
+	@Override
+	public long getDispatchLatencyMax() {
+		return this.dispatchLatency.getMax();
+	}
+
+	@Override
+	public long getWriteLatencyMean() {
+		return this.writeLatency.getMean();
+	}
+
+	@Override
+	public long getWriteLatencyMedian() {
+		return this.writeLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getWriteLatency99thPercentile() {
+		return this.writeLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getWriteLatency999thPercentile() {
+		return this.writeLatency.getPercentile(0.999);
+	}
+
+	@Override
+	public long getWriteLatencyMax() {
+		return this.writeLatency.getMax();
+	}
+
+	@Override
+	public long[] getEventLoopPendingTasks() {
+		List<Long> pending = new ArrayList<>();
+		for (EventExecutor loop : this.workers) {
+			pending.add(loop instanceof SingleThreadEventExecutor
+				? (long)((SingleThreadEventExecutor)loop).pendingTasks()
+				: -1L);
+		}
+		return pending.stream().mapToLong(Long::longValue).toArray();
+	}
+}
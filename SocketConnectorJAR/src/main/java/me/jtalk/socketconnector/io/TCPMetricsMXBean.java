@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+/**
+ * Statistics of a single TCP client, exported through JMX. Sent counters
+ * include data accepted for sending, failures of the writes are counted
+ * separately. A message delivered to both regular and batch listeners is
+ * dispatched twice, a message nobody listens to is not dispatched at all.
+ *
+ * Latencies are in nanoseconds. Queue latency is the time from reading a
+ * message from the socket to starting its delivery, dispatch latency is the
+ * time endpoints take to process a delivery and write latency is the time
+ * from a send call to the data being written to the socket. Write latency
+ * of send calls without a future is sampled.
+ */
+public interface TCPMetricsMXBean {
+
+	long getConnections();
+
+	long getListeners();
+
+	long getReceivedMessages();
+
+	long getReceivedBytes();
+
+	long getSentMessages();
+
+	long getSentBytes();
+
+	long getSendFailures();
+
+	long getReconnectAttempts();
+
+	long getReconnects();
+
+	long getPendingOutboundBytes();
+
+	long getDispatches();
+
+	long getDispatchedMessages();
+
+	long getQueueLatencyMean();
+
+	long getQueueLatencyMedian();
+
+	long getQueueLatency99thPercentile();
+
+	long getQueueLatency999thPercentile();
+
+	long getQueueLatencyMax();
+
+	long getDispatchLatencyMean();
+
+	long getDispatchLatencyMedian();
+
+	long getDispatchLatency99thPercentile();
+
+	long getDispatchLatency999thPercentile();
+
+	long getDispatchLatencyMax();
+
+	long getWriteLatencyMean();
+
+	long getWriteLatencyMedian();
+
+	long getWriteLatency99thPercentile();
+
+	long getWriteLatency999thPercentile();
+
+	long getWriteLatencyMax();
+
+	long[] getEventLoopPendingTasks();
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Netty channel and event loop implementations used by {@link TCPManager}
+ * and {@link UDPManager}.
+ *
+ * Native transports are only used when their libraries are loadable on the
+ * current host, NIO is used as a fallback otherwise.
+ */
+public enum Transport {
+
+	NIO {
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		Throwable unavailabilityCause() {
+			return null;
+		}
+
+		@Override
+		EventLoopGroup newEventLoopGroup(int threads, ThreadFactory factory) {
+			return new NioEventLoopGroup(threads, factory);
+		}
+
+		@Override
+		Class<? extends ServerSocketChannel> serverChannel() {
+			return NioServerSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends SocketChannel> clientChannel() {
+			return NioSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends DatagramChannel> datagramChannel() {
+			return NioDatagramChannel.class;
+		}
+
+		@Override
+		DatagramChannel newDatagramChannel(InternetProtocolFamily family) {
+			return new NioDatagramChannel(family);
+		}
+
+		@Override
+		boolean supportsFileRegion() {
+			return true;
+		}
+
+		@Override
+		boolean supportsReusePort() {
+			return false;
+		}
+	},
+
+	EPOLL {
+		@Override
+		public boolean isAvailable() {
+			return Epoll.isAvailable();
+		}
+
+		@Override
+		Throwable unavailabilityCause() {
+			return Epoll.unavailabilityCause();
+		}
+
+		@Override
+		EventLoopGroup newEventLoopGroup(int threads, ThreadFactory factory) {
+			return new EpollEventLoopGroup(threads, factory);
+		}
+
+		@Override
+		Class<? extends ServerSocketChannel> serverChannel() {
+			return EpollServerSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends SocketChannel> clientChannel() {
+			return EpollSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends DatagramChannel> datagramChannel() {
+			return EpollDatagramChannel.class;
+		}
+
+		@Override
+		DatagramChannel newDatagramChannel(InternetProtocolFamily family) {
+			return new EpollDatagramChannel(family);
+		}
+
+		@Override
+		boolean supportsFileRegion() {
+			return true;
+		}
+
+		@Override
+		boolean supportsReusePort() {
+			return true;
+		}
+	},
+
+	IO_URING {
+		@Override
+		public boolean isAvailable() {
+			return IOUring.isAvailable();
+		}
+
+		@Override
+		Throwable unavailabilityCause() {
+			return IOUring.unavailabilityCause();
+		}
+
+		@Override
+		EventLoopGroup newEventLoopGroup(int threads, ThreadFactory factory) {
+			return new IOUringEventLoopGroup(threads, factory);
+		}
+
+		@Override
+		Class<? extends ServerSocketChannel> serverChannel() {
+			return IOUringServerSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends SocketChannel> clientChannel() {
+			return IOUringSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends DatagramChannel> datagramChannel() {
+			return IOUringDatagramChannel.class;
+		}
+
+		@Override
+		DatagramChannel newDatagramChannel(InternetProtocolFamily family) {
+			return new IOUringDatagramChannel(family);
+		}
+
+		@Override
+		boolean supportsFileRegion() {
+			return false;
+		}
+
+		@Override
+		boolean supportsReusePort() {
+			return true;
+		}
+	};
+
+	public static final String AUTO = "auto";
+
+	private static final Logger log = Logger.getLogger(Transport.class.getName());
+
+	public abstract boolean isAvailable();
+
+	abstract Throwable unavailabilityCause();
+
+	abstract EventLoopGroup newEventLoopGroup(int threads, ThreadFactory factory);
+
+	abstract Class<? extends ServerSocketChannel> serverChannel();
+
+	abstract Class<? extends SocketChannel> clientChannel();
+
+	abstract Class<? extends DatagramChannel> datagramChannel();
+
+	/**
+	 * Opens a datagram channel of the address family given, rather than the
+	 * dual stack default. Not every transport joins IPv4 multicast groups
+	 * through an IPv6 socket.
+	 */
+	abstract DatagramChannel newDatagramChannel(InternetProtocolFamily family);
+
+	/**
+	 * Whether channels of this transport write file regions with sendfile.
+	 * Files are read and sent in chunks otherwise.
+	 */
+	abstract boolean supportsFileRegion();
+
+	/**
+	 * Whether channels of this transport accept
+	 * {@link io.netty.channel.unix.UnixChannelOption#SO_REUSEPORT}, which
+	 * lets several sockets bind the same address with the kernel spreading
+	 * traffic among them.
+	 */
+	abstract boolean supportsReusePort();
+
+	/**
+	 * Checks whether transport name supplied is recognized by {@link #select(String)}.
+	 *
+	 * @param name Transport name from the activation spec.
+	 * @return Whether the name is either {@link #AUTO} or one of the transports.
+	 */
+	public static boolean isKnown(String name) {
+		if (name == null || AUTO.equalsIgnoreCase(name)) {
+			return true;
+		}
+		for (Transport t : values()) {
+			if (t.name().equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves transport requested to the one usable on this host. Both
+	 * {@link #AUTO} and an unavailable native transport fall back to NIO.
+	 * io_uring is never picked automatically, it must be requested explicitly.
+	 *
+	 * @param name Transport name from the activation spec, null means {@link #AUTO}.
+	 * @return Transport to build event loops and channels with.
+	 * @throws IllegalArgumentException if the name is unknown.
+	 */
+	public static Transport select(String name) {
+		if (name == null || AUTO.equalsIgnoreCase(name)) {
+			return EPOLL.isAvailable() ? EPOLL : NIO;
+		}
+		Transport requested = Transport.valueOf(name.toUpperCase(Locale.ROOT));
+		if (requested.isAvailable()) {
+			return requested;
+		}
+		log.log(Level.WARNING, String.format("%s transport is not available, falling back to %s", requested, NIO),
+			requested.unavailabilityCause());
+		return NIO;
+	}
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.unix.SegmentedDatagramPacket;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import java.io.Closeable;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import javax.resource.ResourceException;
+import javax.resource.spi.EISSystemException;
+import me.jtalk.socketconnector.SocketResourceAdapter;
+import me.jtalk.socketconnector.UDPActivationSpec;
+import me.jtalk.socketconnector.api.ConnectionClosedException;
+import me.jtalk.socketconnector.api.UDPMessage;
+import me.jtalk.socketconnector.api.UDPMessageImpl;
+
+/**
+ * Datagram sockets of a single client.
+ *
+ * Every bound socket is identified by its own ID, datagrams received by any
+ * of them are delivered to the client's UDPMessageListener endpoints.
+ */
+public class UDPManager implements Closeable {
+
+	private static final Logger log = Logger.getLogger(UDPManager.class.getName());
+	private static final long SHUTDOWN_TIMEOUT_SEC = 60;
+	// Kernel limits for a single UDP_SEGMENT send
+	private static final int MAX_SEGMENTS = 64;
+	private static final int MAX_SEGMENTED_SIZE = 65507;
+
+	private volatile SocketResourceAdapter parent;
+	private final long id;
+
+	private final Transport transport;
+	private final EventLoopGroup workers;
+	private final List<EventLoop> loops = new ArrayList<>();
+	private final Bootstrap bootstrap;
+	private final ByteBufAllocator allocator;
+
+	private final int shards;
+	private final boolean segmentationOffload;
+	private volatile boolean batchDelivery;
+	private final long multicastId;
+	private final ObjectName multicastMetricsName;
+
+	private final ConnectionRegistry<UDPSocket> sockets = new ConnectionRegistry<>();
+
+	/**
+	 * Creates manager for a client.
+	 *
+	 * @param parent Resource adapter to notify of inbound datagrams.
+	 * @param id Client ID.
+	 * @param spec Client configuration.
+	 * @throws ResourceException if manager cannot be initialized.
+	 */
+	public UDPManager(SocketResourceAdapter parent, long id, UDPActivationSpec spec) throws ResourceException {
+
+		this.parent = parent;
+		this.id = id;
+
+		this.transport = Transport.select(spec.getTransport());
+		log.info(String.format("UDP manager for client %d is using %s transport", id, this.transport));
+
+		this.workers = this.transport.newEventLoopGroup(spec.getReceiverThreadsCount(), new DaemonThreadFactory());
+		for (EventExecutor loop : this.workers) {
+			this.loops.add((EventLoop)loop);
+		}
+		if (spec.getReusePort() && !this.transport.supportsReusePort()) {
+			log.warning(String.format("SO_REUSEPORT is not supported by %s transport, UDP sockets of client %d are not sharded",
+				this.transport, id));
+		}
+		this.shards = spec.getReusePort() && this.transport.supportsReusePort() ? this.loops.size() : 1;
+		// UDP_SEGMENT and UDP_GRO are only exposed by the epoll transport
+		this.segmentationOffload = spec.getSegmentationOffload()
+			&& this.transport == Transport.EPOLL && EpollDatagramChannel.isSegmentedDatagramPacketSupported();
+		if (spec.getSegmentationOffload() && !this.segmentationOffload) {
+			log.warning(String.format("UDP segmentation offload is not supported by %s transport on this host, "
+				+ "it is disabled for client %d", this.transport, id));
+		}
+		this.allocator = Allocators.create(spec.getAllocator(), spec.getPreferDirect(), 0, 0);
+		this.bootstrap = this.instantiateBootstrap(spec, null);
+
+		List<InetAddress> groups = MulticastGroups.parse(spec.getMulticastGroups());
+		if (groups.isEmpty()) {
+			this.multicastId = 0;
+			this.multicastMetricsName = null;
+		} else {
+			MulticastMetrics metrics = new MulticastMetrics(groups, spec.getSequenceOffset(), spec.getSequenceLength());
+			// io_uring cannot join IPv4 groups through a dual stack socket
+			InternetProtocolFamily family = groups.stream().allMatch(group -> group instanceof Inet4Address)
+				? InternetProtocolFamily.IPv4
+				: null;
+			try {
+				this.multicastId = this.joinGroups(groups, MulticastGroups.networkInterface(spec.getMulticastInterface()),
+					spec.getMulticastPort(), this.instantiateBootstrap(spec, family), metrics);
+			} catch (ResourceException | RuntimeException e) {
+				this.workers.shutdownGracefully(0, SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+				throw e;
+			}
+			this.multicastMetricsName = Metrics.register(Metrics.name("Multicast", id), metrics);
+		}
+	}
+
+	/**
+	 * @return ID of the socket multicast groups are joined through, 0 if
+	 * no groups are configured.
+	 */
+	public long getMulticastId() {
+		return this.multicastId;
+	}
+
+	/**
+	 * Enables delivery of datagrams to batch listeners, in addition to
+	 * regular ones.
+	 *
+	 * @param enabled Whether batch listeners are activated for this client.
+	 */
+	public void setBatchDelivery(boolean enabled) {
+		this.batchDelivery = enabled;
+	}
+
+	public boolean isBatchDelivery() {
+		return this.batchDelivery;
+	}
+
+	/**
+	 * Binds a socket. With SO_REUSEPORT enabled, a channel is bound to the
+	 * same address for each event loop, and the kernel spreads datagrams
+	 * among them. All of them are represented by a single ID.
+	 */
+	public long bind(InetSocketAddress local) throws ResourceException {
+		return this.open(local, this.shards, this.bootstrap, null).id;
+	}
+
+	/**
+	 * Binds a single socket to the wildcard address and joins all the
+	 * groups through it. The socket is never sharded: every SO_REUSEPORT
+	 * socket would receive its own copy of each multicast datagram.
+	 */
+	private long joinGroups(List<InetAddress> groups, NetworkInterface iface, int port, Bootstrap base,
+			MulticastMetrics metrics) throws ResourceException {
+		Bootstrap multicastBootstrap = base.option(ChannelOption.SO_REUSEADDR, true);
+		if (this.shards > 1) {
+			multicastBootstrap.option(UnixChannelOption.SO_REUSEPORT, false);
+		}
+		if (this.transport == Transport.EPOLL) {
+			// Destination addresses tell which group a datagram is sent to
+			multicastBootstrap.option(EpollChannelOption.IP_RECVORIGDSTADDR, true);
+		}
+		UDPSocket socket = this.open(new InetSocketAddress(port), 1, multicastBootstrap, metrics);
+		DatagramChannel channel = (DatagramChannel)socket.channels[0];
+		try {
+			for (InetAddress group : groups) {
+				log.info(String.format("UDP client %d joins multicast group %s on %s", this.id, group, iface.getName()));
+				ChannelFuture joined = channel.joinGroup(new InetSocketAddress(group, port), iface).await();
+				if (!joined.isSuccess()) {
+					throw new EISSystemException("Joining multicast group " + group + " failed", joined.cause());
+				}
+			}
+		} catch (InterruptedException e) {
+			this.close(socket.id);
+			throw new EISSystemException("Execution interrupted during joining multicast groups", e);
+		} catch (ResourceException | RuntimeException e) {
+			this.close(socket.id);
+			throw e;
+		}
+		return socket.id;
+	}
+
+	private UDPSocket open(InetSocketAddress local, int shards, Bootstrap base, MulticastMetrics multicast) throws ResourceException {
+		long socketId = this.sockets.reserve();
+		UDPSocketMetrics metrics = new UDPSocketMetrics(shards);
+		Channel[] channels = new Channel[shards];
+		try {
+			log.finest(String.format("UDP binding to %s: starting %d shards", local, shards));
+
+			SocketAddress address = local;
+			for (int shard = 0; shard < shards; shard++) {
+				// Shards are pinned to event loops of their own, round robin
+				// would let concurrent bindings put several on the same loop
+				Bootstrap shardBootstrap = (shards > 1 ? base.clone(this.loops.get(shard)) : base.clone())
+					.handler(new DatagramReceiver(this, socketId, shard, metrics, multicast, this.transport == Transport.EPOLL));
+				ChannelFuture completed = shardBootstrap.bind(address).sync();
+				if (!completed.isSuccess()) {
+					throw new EISSystemException("Binding failed", completed.cause());
+				}
+				channels[shard] = completed.channel();
+				// Other shards must share the port even if an ephemeral one is requested
+				address = channels[shard].localAddress();
+			}
+		} catch (InterruptedException e) {
+			closeBound(channels);
+			this.sockets.remove(socketId);
+			throw new EISSystemException("Execution interrupted during binding", e);
+		} catch (ResourceException | RuntimeException e) {
+			closeBound(channels);
+			this.sockets.remove(socketId);
+			throw e;
+		}
+		metrics.setLocalAddress(channels[0].localAddress());
+		ObjectName metricsName = Metrics.register(Metrics.name("UDPSocket", this.id, socketId), metrics);
+		UDPSocket socket = new UDPSocket(socketId, channels, metrics, metricsName);
+		this.sockets.put(socketId, socket);
+		for (Channel channel : channels) {
+			channel.closeFuture().addListener(f -> this.close(socketId));
+		}
+
+		log.finest(String.format("UDP binding to %s: socket id %d", local, socketId));
+		return socket;
+	}
+
+	/**
+	 * Sends datagram without waiting for it to be written.
+	 */
+	public void sendTo(long id, InetSocketAddress target, ByteBuffer data) throws ResourceException {
+		UDPSocket socket = this.getSocket(id);
+		Channel output = socket.output();
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Datagram sending from id %d to %s, %d bytes", id, target, data.remaining()));
+		}
+		DatagramPacket packet = new DatagramPacket(Buffers.toByteBuf(output.alloc(), data), target);
+		output.writeAndFlush(packet).addListener(socket.sendListener);
+	}
+
+	/**
+	 * Sends datagrams to the same recipient with a single flush. Epoll
+	 * transport passes them to the kernel with a single sendmmsg, and with
+	 * segmentation offload enabled equally sized datagrams are further
+	 * combined to segmented packets the kernel splits on its own.
+	 */
+	public void sendTo(long id, InetSocketAddress target, List<ByteBuffer> data) throws ResourceException {
+		UDPSocket socket = this.getSocket(id);
+		Channel output = socket.output();
+		if (log.isLoggable(Level.FINEST)) {
+			log.finest(String.format("Datagrams sending from id %d to %s, %d datagrams", id, target, data.size()));
+		}
+		int start = 0;
+		while (start < data.size()) {
+			int end = this.segmentationOffload ? segmentEnd(data, start) : start + 1;
+			int count = end - start;
+			DatagramPacket packet;
+			if (count == 1) {
+				packet = new DatagramPacket(Buffers.toByteBuf(output.alloc(), data.get(start)), target);
+			} else {
+				ByteBuffer[] segments = data.subList(start, end).toArray(new ByteBuffer[count]);
+				int segmentSize = segments[0].remaining();
+				packet = new SegmentedDatagramPacket(Buffers.toByteBuf(output.alloc(), segments), segmentSize, target);
+			}
+			output.write(packet).addListener(count == 1 ? socket.sendListener : f -> sent(socket, f, count));
+			start = end;
+		}
+		output.flush();
+	}
+
+	public boolean isOpen(long id) {
+		return this.sockets.get(id) != null;
+	}
+
+	public boolean close(long id) {
+		log.finest(String.format("UDP socket closing for id %d: requested", id));
+		UDPSocket socket = this.sockets.remove(id);
+		if (socket == null) {
+			log.finest(String.format("UDP socket closing for id %d: no socket", id));
+			return false;
+		}
+		socket.close();
+		return true;
+	}
+
+	@Override
+	public void close() {
+		log.finest("Closing UDPManager with all sockets");
+
+		// Closing the multicast socket leaves its groups
+		this.sockets.forEach(socket -> this.close(socket.id));
+		Metrics.unregister(this.multicastMetricsName);
+		this.workers.shutdownGracefully(0, SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+		this.parent = null;
+
+		log.finest("UDPManager successfuly closed");
+	}
+
+	// Receiver callbacks
+	UDPMessage dataReceived(long id, DatagramPacket packet) {
+		UDPMessage message = new UDPMessageImpl(id, packet.sender(), packet.recipient(), ByteBufUtil.getBytes(packet.content()));
+		SocketResourceAdapter local = this.parent;
+		if (local != null) {
+			local.notifyReceived(this.id, message);
+		}
+		return message;
+	}
+
+	void batchReceived(List<UDPMessage> messages) {
+		SocketResourceAdapter local = this.parent;
+		if (local != null) {
+			local.notifyReceivedUDP(this.id, messages);
+		}
+	}
+
+	/**
+	 * @param family Address family of the channels, null for the dual
+	 * stack default.
+	 */
+	private Bootstrap instantiateBootstrap(UDPActivationSpec spec, InternetProtocolFamily family) {
+		Bootstrap newBootstrap = new Bootstrap();
+		newBootstrap.group(this.workers);
+		if (family == null) {
+			newBootstrap.channel(this.transport.datagramChannel());
+		} else {
+			newBootstrap.channelFactory(() -> this.transport.newDatagramChannel(family));
+		}
+		newBootstrap.option(ChannelOption.ALLOCATOR, this.allocator);
+		if (this.segmentationOffload) {
+			// Coalesced datagrams are read into a single buffer with one
+			// recvmsg and split back by Netty along the segment size the
+			// kernel reports. A smaller payload size would switch to
+			// recvmmsg, which loses the segment size and delivers the
+			// coalesced datagrams as one.
+			newBootstrap.option(EpollChannelOption.UDP_GRO, true);
+			newBootstrap.option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, MAX_SEGMENTED_SIZE);
+			newBootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(MAX_SEGMENTED_SIZE));
+		} else {
+			// Every datagram is read into a pooled buffer of the maximum size
+			newBootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(spec.getMaxDatagramSize()));
+		}
+		if (this.shards > 1) {
+			newBootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+		}
+		if (spec.getReceiveBufferSize() > 0) {
+			newBootstrap.option(ChannelOption.SO_RCVBUF, spec.getReceiveBufferSize());
+		}
+
+		return newBootstrap;
+	}
+
+	private UDPSocket getSocket(long id) throws ConnectionClosedException {
+		UDPSocket socket = this.sockets.get(id);
+		if (socket == null) {
+			throw new ConnectionClosedException("Socket is closed");
+		}
+		return socket;
+	}
+
+	/**
+	 * Finds the end of a run of datagrams starting at start which can be sent
+	 * as a single segmented packet: all of the same size except the last one,
+	 * which may be shorter, and within the kernel segment count and packet
+	 * size limits.
+	 */
+	private static int segmentEnd(List<ByteBuffer> data, int start) {
+		int segmentSize = data.get(start).remaining();
+		int total = segmentSize;
+		int end = start + 1;
+		while (end < data.size() && end - start < MAX_SEGMENTS) {
+			int size = data.get(end).remaining();
+			if (size > segmentSize || size == 0 || total + size > MAX_SEGMENTED_SIZE) {
+				break;
+			}
+			total += size;
+			end++;
+			if (size < segmentSize) {
+				break;
+			}
+		}
+		return end;
+	}
+
+	static void sent(UDPSocket socket, Future<?> f, int datagrams) {
+		socket.metrics.sent(f.isSuccess(), datagrams);
+		if (!f.isSuccess()) {
+			log.log(Level.FINE, "Error while sending datagram from id {0}: {1}", new Object[] {socket.id, f.cause()});
+		}
+	}
+
+	private static void closeBound(Channel[] channels) {
+		for (Channel channel : channels) {
+			if (channel != null) {
+				channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ObjectName;
+
+/**
+ * Bound UDP socket: one channel, or one channel per event loop if bound
+ * with SO_REUSEPORT.
+ */
+class UDPSocket {
+
+	public final long id;
+	public final Channel[] channels;
+	public final UDPSocketMetrics metrics;
+	public final ObjectName metricsName;
+	// Shared by all single datagram sends, so that sending allocates no listener
+	public final ChannelFutureListener sendListener = f -> UDPManager.sent(this, f, 1);
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	public UDPSocket(long id, Channel[] channels, UDPSocketMetrics metrics, ObjectName metricsName) {
+		this.id = id;
+		this.channels = channels;
+		this.metrics = metrics;
+		this.metricsName = metricsName;
+	}
+
+	/**
+	 * Spreads outbound datagrams over the shards, so that sending is not
+	 * bound to a single event loop either.
+	 */
+	public Channel output() {
+		if (this.channels.length == 1) {
+			return this.channels[0];
+		}
+		int index = (this.next.getAndIncrement() & Integer.MAX_VALUE) % this.channels.length;
+		return this.channels[index];
+	}
+
+	public void close() {
+		for (Channel channel : this.channels) {
+			channel.close();
+		}
+		Metrics.unregister(this.metricsName);
+	}
+}
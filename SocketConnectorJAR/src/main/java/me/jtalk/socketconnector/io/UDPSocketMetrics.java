@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+class UDPSocketMetrics implements UDPSocketMetricsMXBean {
+
+	private final int shards;
+	private final AtomicLongArray received;
+	private final AtomicLongArray receivedBytes;
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder sendFailures = new LongAdder();
+
+	private volatile SocketAddress localAddress;
+
+	public UDPSocketMetrics(int shards) {
+		this.shards = shards;
+		this.received = new AtomicLongArray(shards);
+		this.receivedBytes = new AtomicLongArray(shards);
+	}
+
+	void setLocalAddress(SocketAddress localAddress) {
+		this.localAddress = localAddress;
+	}
+
+	/**
+	 * Every shard is only updated from its own event loop.
+	 */
+	void received(int shard, int bytes) {
+		this.received.lazySet(shard, this.received.get(shard) + 1);
+		this.receivedBytes.lazySet(shard, this.receivedBytes.get(shard) + bytes);
+	}
+
+	void sent(boolean success, int datagrams) {
+		if (success) {
+			this.sent.add(datagrams);
+		} else {
+			this.sendFailures.add(datagrams);
+		}
+	}
+
+	@Override
+	public String getLocalAddress() {
+		return String.valueOf(this.localAddress);
+	}
+
+	@Override
+	public int getShards() {
+		return this.shards;
+	}
+
+	@Override
+	public long[] getReceivedDatagrams() {
+		return snapshot(this.received);
+	}
+
+	@Override
+	public long[] getReceivedBytes() {
+		return snapshot(this.receivedBytes);
+	}
+
+	@Override
+	public long getSentDatagrams() {
+		return this.sent.sum();
+	}
+
+	@Override
+	public long getSendFailures() {
+		return this.sendFailures.sum();
+	}
+
+	private static long[] snapshot(AtomicLongArray values) {
+		long[] result = new long[values.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = values.get(i);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+/**
+ * Statistics of a single bound UDP socket, exported through JMX. A socket
+ * bound with SO_REUSEPORT consists of several shards, receive counters are
+ * reported per shard.
+ */
+public interface UDPSocketMetricsMXBean {
+
+	String getLocalAddress();
+
+	int getShards();
+
+	long[] getReceivedDatagrams();
+
+	long[] getReceivedBytes();
+
+	long getSentDatagrams();
+
+	long getSendFailures();
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.internal.PlatformDependent;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded queue of outbound writes for a single connection.
+ *
+ * Writes are added by any thread and drained on the connection's event loop
+ * in a single task, with a single flush for everything drained. Concurrent
+ * senders of small messages thus share both event loop wakeups and write
+ * syscalls.
+ */
+class WriteQueue implements Runnable {
+
+	private static final Logger log = Logger.getLogger(WriteQueue.class.getName());
+
+	private final Channel channel;
+	private final WriteQueueMetrics metrics;
+	private final int capacity;
+
+	private final Queue<PendingWrite> items;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	public WriteQueue(Channel channel, int capacity, WriteQueueMetrics metrics) {
+		this.channel = channel;
+		this.metrics = metrics;
+		this.capacity = capacity;
+		this.items = PlatformDependent.newFixedMpscQueue(capacity);
+	}
+
+	/**
+	 * Queues data to be written and flushed on the event loop.
+	 *
+	 * @param data Message to write, released once written or failed.
+	 * @param promise Promise to complete with the write outcome.
+	 * @return Whether data is queued, false if the queue is full. Data
+	 * is not released then.
+	 */
+	public boolean add(Object data, ChannelPromise promise) {
+		if (!this.items.offer(new PendingWrite(data, promise))) {
+			this.metrics.rejected();
+			return false;
+		}
+		this.metrics.queued();
+		if (this.scheduled.compareAndSet(false, true)) {
+			this.schedule();
+		}
+		return true;
+	}
+
+	@Override
+	public void run() {
+		int drained = 0;
+		PendingWrite item;
+		while (drained < this.capacity && (item = this.items.poll()) != null) {
+			drained++;
+			this.channel.write(item.data, item.promise);
+		}
+		if (drained > 0) {
+			this.channel.flush();
+			this.metrics.flushed(drained);
+		}
+
+		this.scheduled.set(false);
+		if (!this.items.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+			this.schedule();
+		}
+	}
+
+	/**
+	 * Submits the drain task, the caller must have set the scheduled flag.
+	 *
+	 * If the event loop is shut down, queued writes are failed instead and
+	 * the flag is reset, so writes added later are failed by their own
+	 * senders rather than left waiting for a drain that never comes. The
+	 * flag is only reset once failing is done, since the queue only allows
+	 * a single consumer.
+	 */
+	private void schedule() {
+		while (true) {
+			try {
+				this.channel.eventLoop().execute(this);
+				return;
+			} catch (RejectedExecutionException e) {
+				log.log(Level.FINE, "Event loop is shut down, queued writes are failed", e);
+				this.fail(e);
+			}
+			this.scheduled.set(false);
+			if (this.items.isEmpty() || !this.scheduled.compareAndSet(false, true)) {
+				return;
+			}
+		}
+	}
+
+	private void fail(Throwable cause) {
+		int failed = 0;
+		PendingWrite item;
+		while ((item = this.items.poll()) != null) {
+			failed++;
+			TCPManager.discard(item.data);
+			item.promise.tryFailure(cause);
+		}
+		this.metrics.failed(failed);
+	}
+
+	private static class PendingWrite {
+
+		final Object data;
+		final ChannelPromise promise;
+
+		PendingWrite(Object data, ChannelPromise promise) {
+			this.data = data;
+			this.promise = promise;
+		}
+	}
+}
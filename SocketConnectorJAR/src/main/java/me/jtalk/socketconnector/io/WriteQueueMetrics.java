@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class WriteQueueMetrics implements WriteQueueMetricsMXBean {
+
+	private final LongAdder queued = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder written = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder flushes = new LongAdder();
+
+	void queued() {
+		this.queued.increment();
+	}
+
+	void rejected() {
+		this.rejected.increment();
+	}
+
+	void flushed(int writes) {
+		this.written.add(writes);
+		this.flushes.increment();
+	}
+
+	void failed(int writes) {
+		this.failed.add(writes);
+	}
+
+	@Override
+	public long getQueuedWrites() {
+		return this.queued.sum();
+	}
+
+	@Override
+	public long getRejectedWrites() {
+		return this.rejected.sum();
+	}
+
+	@Override
+	public long getFailedWrites() {
+		return this.failed.sum();
+	}
+
+	@Override
+	public long getPendingWrites() {
+		return Math.max(0, this.queued.sum() - this.written.sum() - this.failed.sum());
+	}
+
+	@Override
+	public long getFlushes() {
+		return this.flushes.sum();
+	}
+
+	@Override
+	public double getWritesPerFlush() {
+		long flushCount = this.flushes.sum();
+		return flushCount == 0 ? 0 : (double)this.written.sum() / flushCount;
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+/**
+ * Outbound write coalescing statistics of a single client, exported through
+ * JMX.
+ */
+public interface WriteQueueMetricsMXBean {
+
+	long getQueuedWrites();
+
+	long getRejectedWrites();
+
+	/**
+	 * @return Writes queued but never written, since their event loop was
+	 * shut down.
+	 */
+	long getFailedWrites();
+
+	long getPendingWrites();
+
+	long getFlushes();
+
+	double getWritesPerFlush();
+}
@@ -20,7 +20,9 @@ package me.jtalk.socketconnector.utils;
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
 import me.jtalk.socketconnector.ExistingTCPConnectionRequest;
+import me.jtalk.socketconnector.ExistingUDPConnectionRequest;
 import me.jtalk.socketconnector.NewTCPConnectionRequest;
+import me.jtalk.socketconnector.NewUDPConnectionRequest;
 
 public class ConnectionRequestInfoUtils {
 
@@ -35,6 +37,16 @@ public class ConnectionRequestInfoUtils {
 			if (request.getUid() != clientId) {
 				throw new ResourceException("Incompatible UID supplied to managed connection");
 			}
+		} else if (rawInfo instanceof ExistingUDPConnectionRequest) {
+			ExistingUDPConnectionRequest request = (ExistingUDPConnectionRequest) rawInfo;
+			if (request.getUid() != clientId || request.getId() != id) {
+				throw new ResourceException("Incompatible UID and ConnectionID supplied to managed connection");
+			}
+		} else if (rawInfo instanceof NewUDPConnectionRequest) {
+			NewUDPConnectionRequest request = (NewUDPConnectionRequest) rawInfo;
+			if (request.getUid() != clientId) {
+				throw new ResourceException("Incompatible UID supplied to managed connection");
+			}
 		} else {
 			throw new ResourceException(String.format("Incompatible connection request info type %s supplied to managed connection", rawInfo.getClass().getCanonicalName()));
 		}
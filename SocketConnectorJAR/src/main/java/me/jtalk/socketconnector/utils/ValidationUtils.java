@@ -19,19 +19,19 @@ package me.jtalk.socketconnector.utils;
 import java.util.Set;
 import java.util.function.Consumer;
 import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionRequestInfo;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
 import javax.validation.groups.Default;
-import me.jtalk.socketconnector.NewTCPConnectionRequest;
 
 public class ValidationUtils {
 
-	public static void validateInfo(Validator validator, Consumer<String> logger, NewTCPConnectionRequest info) throws ResourceException {
-		Set<ConstraintViolation<NewTCPConnectionRequest>> violations = validator.validate(info, Default.class);
+	public static <T extends ConnectionRequestInfo> void validateInfo(Validator validator, Consumer<String> logger, T info) throws ResourceException {
+		Set<ConstraintViolation<T>> violations = validator.validate(info, Default.class);
 		if (violations.isEmpty()) {
 			return;
 		}
-		for (ConstraintViolation<NewTCPConnectionRequest> violation : violations) {
+		for (ConstraintViolation<T> violation : violations) {
 			String message = violation.getMessage();
 			logger.accept(message);
 		}
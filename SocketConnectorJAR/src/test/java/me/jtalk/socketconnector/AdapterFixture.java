@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.function.Consumer;
+import javax.resource.ResourceException;
+import javax.resource.spi.ActivationSpec;
+import javax.resource.spi.ConfigProperty;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+
+/**
+ * Resource adapter started outside of an application server, with a single
+ * endpoint factory activated for a client. Published with the test jar for
+ * the benchmarks to use.
+ *
+ * @param <F> Endpoint factory type.
+ */
+public class AdapterFixture<F extends MessageEndpointFactory> implements AutoCloseable {
+
+	public static final long CLIENT_ID = 1;
+
+	public final SocketResourceAdapter adapter;
+	public final F endpoints;
+
+	private final StubWorkManager workManager;
+	private final ActivationSpec spec;
+
+	private AdapterFixture(ActivationSpec spec, F endpoints, int workThreads)
+			throws IOException, ResourceException {
+		this.spec = spec;
+		this.endpoints = endpoints;
+		this.workManager = new StubWorkManager(workThreads);
+		this.adapter = new SocketResourceAdapter();
+		this.adapter.start(new StubBootstrapContext(this.workManager));
+		spec.validate();
+		this.adapter.endpointActivation(this.endpoints, spec);
+	}
+
+	/**
+	 * Starts adapter with a TCP client configured with activation spec
+	 * defaults, except for the properties the caller changes.
+	 */
+	public static AdapterFixture<RecordingEndpointFactory> tcp(Consumer<TCPActivationSpec> configuration)
+			throws IOException, ResourceException {
+		return tcp(new RecordingEndpointFactory(), configuration);
+	}
+
+	/**
+	 * Same as {@link #tcp(Consumer)}, with batch listeners activated instead
+	 * of regular ones.
+	 */
+	public static AdapterFixture<RecordingEndpointFactory> tcpBatch(Consumer<TCPActivationSpec> configuration)
+			throws IOException, ResourceException {
+		return tcp(new RecordingEndpointFactory(true), configuration);
+	}
+
+	/**
+	 * Same as {@link #tcp(Consumer)}, with endpoints of the factory given.
+	 */
+	public static <F extends MessageEndpointFactory> AdapterFixture<F> tcp(F endpoints, Consumer<TCPActivationSpec> configuration)
+			throws IOException, ResourceException {
+		TCPActivationSpec spec = withDefaults(new TCPActivationSpec());
+		spec.setClientId(CLIENT_ID);
+		configuration.accept(spec);
+		return new AdapterFixture<>(spec, endpoints, 4);
+	}
+
+	public static AdapterFixture<RecordingEndpointFactory> udp(Consumer<UDPActivationSpec> configuration)
+			throws IOException, ResourceException {
+		return udp(new RecordingEndpointFactory(), configuration);
+	}
+
+	/**
+	 * Same as {@link #udp(Consumer)}, with endpoints of the factory given.
+	 */
+	public static <F extends MessageEndpointFactory> AdapterFixture<F> udp(F endpoints, Consumer<UDPActivationSpec> configuration)
+			throws IOException, ResourceException {
+		UDPActivationSpec spec = withDefaults(new UDPActivationSpec());
+		spec.setClientId(CLIENT_ID);
+		configuration.accept(spec);
+		return new AdapterFixture<>(spec, endpoints, 4);
+	}
+
+	/**
+	 * @return Loopback address with a port nobody listens to at the moment.
+	 */
+	public static InetSocketAddress freeLoopbackAddress() throws IOException {
+		try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), probe.getLocalPort());
+		}
+	}
+
+	/**
+	 * @return Loopback address with a UDP port nobody is bound to at the moment.
+	 */
+	public static InetSocketAddress freeLoopbackDatagramAddress() throws IOException {
+		try (DatagramSocket probe = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), probe.getLocalPort());
+		}
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		this.adapter.endpointDeactivation(this.endpoints, this.spec);
+		this.adapter.stop();
+		this.workManager.shutdown();
+	}
+
+	/**
+	 * Applies {@link ConfigProperty} default values, as an application server
+	 * does before activation.
+	 */
+	private static <T extends ActivationSpec> T withDefaults(T spec) {
+		for (Field field : spec.getClass().getDeclaredFields()) {
+			ConfigProperty property = field.getAnnotation(ConfigProperty.class);
+			if (property == null) {
+				continue;
+			}
+			Object value = parse(field.getType(), property.defaultValue());
+			if (value == null) {
+				continue;
+			}
+			try {
+				field.setAccessible(true);
+				field.set(spec, value);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Property " + field.getName() + " cannot be set", e);
+			}
+		}
+		return spec;
+	}
+
+	private static Object parse(Class<?> type, String value) {
+		if (type == String.class) {
+			return value;
+		} else if (value.isEmpty()) {
+			return null;
+		} else if (type == Integer.class) {
+			return Integer.valueOf(value);
+		} else if (type == Long.class) {
+			return Long.valueOf(value);
+		} else if (type == Boolean.class) {
+			return Boolean.valueOf(value);
+		}
+		throw new IllegalArgumentException("Unsupported property type " + type);
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Heap allocation counter over all the threads of the JVM, I/O threads
+ * included. Threads terminated before the counting ends are not accounted
+ * for.
+ */
+class Allocations {
+
+	private static final com.sun.management.ThreadMXBean THREADS
+		= (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	private final Map<Long, Long> start;
+
+	private Allocations() {
+		this.start = snapshot();
+	}
+
+	/**
+	 * Starts counting. The test is skipped if the JVM does not measure
+	 * thread allocations.
+	 */
+	public static Allocations start() {
+		assumeTrue("Thread allocation measurement is not supported",
+			THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled());
+		return new Allocations();
+	}
+
+	/**
+	 * @return Bytes allocated since the counting is started.
+	 */
+	public long bytes() {
+		long sum = 0;
+		for (Map.Entry<Long, Long> e : snapshot().entrySet()) {
+			sum += e.getValue() - this.start.getOrDefault(e.getKey(), 0L);
+		}
+		return sum;
+	}
+
+	private static Map<Long, Long> snapshot() {
+		Set<Thread> threads = Thread.getAllStackTraces().keySet();
+		long[] ids = new long[threads.size()];
+		int i = 0;
+		for (Thread t : threads) {
+			ids[i++] = t.getId();
+		}
+		long[] bytes = THREADS.getThreadAllocatedBytes(ids);
+		Map<Long, Long> result = new HashMap<>();
+		for (i = 0; i < ids.length; i++) {
+			// Negative for threads terminated meanwhile
+			if (bytes[i] >= 0) {
+				result.put(ids[i], bytes[i]);
+			}
+		}
+		return result;
+	}
+}
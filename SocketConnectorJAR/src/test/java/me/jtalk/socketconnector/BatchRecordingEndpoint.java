@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import me.jtalk.socketconnector.api.TCPBatchMessageListener;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.api.TCPMessage;
+
+/**
+ * Batch message endpoint passing every message of a batch to its factory.
+ */
+class BatchRecordingEndpoint implements TCPBatchMessageListener, MessageEndpoint {
+
+	private final RecordingEndpointFactory factory;
+
+	public BatchRecordingEndpoint(RecordingEndpointFactory factory) {
+		this.factory = factory;
+	}
+
+	@Override
+	public void initialized() {
+	}
+
+	@Override
+	public void onMessages(List<TCPMessage> messages) {
+		for (TCPMessage message : messages) {
+			this.factory.received(message);
+		}
+	}
+
+	@Override
+	public void disconnected(TCPDisconnectionNotification notification) {
+		this.factory.disconnected(notification);
+	}
+
+	@Override
+	public void beforeDelivery(Method method) {
+	}
+
+	@Override
+	public void afterDelivery() {
+	}
+
+	@Override
+	public void release() {
+	}
+}
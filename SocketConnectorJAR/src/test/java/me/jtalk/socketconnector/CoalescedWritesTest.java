@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.resource.spi.RetryableUnavailableException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Concurrent senders sharing a connection with coalesced writes: the queue
+ * is small enough to fill up, so senders also retry rejected writes. Data
+ * of every sender arrives in the order sent and every write completes.
+ */
+public class CoalescedWritesTest {
+
+	private static final int SENDERS = 4;
+	private static final int MESSAGES = 2000;
+	private static final int FRAME_SIZE = 12;
+	private static final long TIMEOUT_SEC = 10;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private ServerSocketChannel server;
+	private SocketChannel peer;
+
+	@Before
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(spec -> {
+			spec.setCoalesceWrites(true);
+			spec.setWriteQueueCapacity(16);
+		});
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.server = ServerSocketChannel.open().bind(address);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.peer != null) {
+			this.peer.close();
+		}
+		if (this.server != null) {
+			this.server.close();
+		}
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testConcurrentSendsArriveInOrder() throws Exception {
+		long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, (InetSocketAddress)this.server.getLocalAddress());
+		this.peer = this.server.accept();
+
+		List<List<CompletableFuture<Void>>> futures = new ArrayList<>();
+		List<Thread> senders = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		for (int s = 0; s < SENDERS; s++) {
+			List<CompletableFuture<Void>> sent = new ArrayList<>();
+			futures.add(sent);
+			int sender = s;
+			Thread thread = new Thread(() -> this.send(id, sender, sent, start), "sender-" + s);
+			thread.start();
+			senders.add(thread);
+		}
+		start.countDown();
+
+		long[] next = new long[SENDERS];
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE);
+		for (int i = 0; i < SENDERS * MESSAGES; i++) {
+			frame.clear();
+			while (frame.hasRemaining()) {
+				assertTrue("Connection is closed early", this.peer.read(frame) >= 0);
+			}
+			frame.flip();
+			int sender = frame.getInt();
+			assertEquals("Data of sender " + sender + " is out of order", next[sender]++, frame.getLong());
+		}
+
+		for (Thread thread : senders) {
+			thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SEC));
+		}
+		for (int s = 0; s < SENDERS; s++) {
+			assertEquals("Sender " + s + " is not done", MESSAGES, futures.get(s).size());
+			for (CompletableFuture<Void> future : futures.get(s)) {
+				future.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+			}
+		}
+	}
+
+	private void send(long id, int sender, List<CompletableFuture<Void>> sent, CountDownLatch start) {
+		try {
+			start.await();
+			for (long i = 0; i < MESSAGES; i++) {
+				ByteBuffer data = ByteBuffer.allocate(FRAME_SIZE).putInt(sender).putLong(i);
+				data.flip();
+				while (true) {
+					try {
+						sent.add(this.fixture.adapter.sendTCPAsync(AdapterFixture.CLIENT_ID, id, data).toCompletableFuture());
+						break;
+					} catch (RetryableUnavailableException e) {
+						// The queue is full, the data is not consumed
+						Thread.yield();
+					}
+				}
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException("Sending failed", e);
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.resource.ResourceException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Asynchronous connection establishment. Attempts that never complete are
+ * made to a listener whose accept queue is full: the kernel drops further
+ * handshakes and they wait for the connect timeout.
+ */
+public class ConnectTest {
+
+	private static final int CONNECT_TIMEOUT_MS = 300;
+	private static final int CONCURRENCY = 2;
+	private static final long TIMEOUT_SEC = 10;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private ServerSocketChannel full;
+	private final List<SocketChannel> backlog = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(spec -> {
+			spec.setConnectTimeout(CONNECT_TIMEOUT_MS);
+			spec.setConnectConcurrency(CONCURRENCY);
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (SocketChannel channel : this.backlog) {
+			channel.close();
+		}
+		if (this.full != null) {
+			this.full.close();
+		}
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testRefusedConnectFails() throws Exception {
+		InetSocketAddress refused = AdapterFixture.freeLoopbackAddress();
+		CompletionStage<Long> result = this.fixture.adapter.createTCPConnectionAsync(AdapterFixture.CLIENT_ID, refused);
+		assertFailed(result);
+	}
+
+	@Test
+	public void testFailureDoesNotAffectOthers() throws Exception {
+		InetSocketAddress listening = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, listening);
+		InetSocketAddress refused = AdapterFixture.freeLoopbackAddress();
+
+		List<CompletionStage<Long>> results = this.fixture.adapter.createTCPConnections(AdapterFixture.CLIENT_ID,
+			Arrays.asList(listening, refused, listening, refused, listening));
+
+		long first = connected(results.get(0));
+		assertFailed(results.get(1));
+		long second = connected(results.get(2));
+		assertFailed(results.get(3));
+		long third = connected(results.get(4));
+		assertNotEquals(first, second);
+		assertNotEquals(second, third);
+		assertNotEquals(first, third);
+	}
+
+	@Test
+	public void testConnectTimesOut() throws Exception {
+		InetSocketAddress unresponsive = this.unresponsiveAddress();
+		long start = System.nanoTime();
+		CompletionStage<Long> result = this.fixture.adapter.createTCPConnectionAsync(AdapterFixture.CLIENT_ID, unresponsive);
+		assertFailed(result);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("Failed after " + elapsed + " ms", elapsed >= CONNECT_TIMEOUT_MS);
+	}
+
+	@Test
+	public void testConcurrencyLimitIsRespected() throws Exception {
+		InetSocketAddress unresponsive = this.unresponsiveAddress();
+		int attempts = CONCURRENCY * 3;
+		long start = System.nanoTime();
+		List<CompletionStage<Long>> results = this.fixture.adapter.createTCPConnections(AdapterFixture.CLIENT_ID,
+			Collections.nCopies(attempts, unresponsive));
+
+		List<Long> failedAt = new ArrayList<>();
+		for (CompletionStage<Long> result : results) {
+			assertFailed(result);
+		}
+		for (CompletionStage<Long> result : results) {
+			failedAt.add(result.handle((id, e) -> System.nanoTime()).toCompletableFuture().get());
+		}
+		Collections.sort(failedAt);
+		// Attempts time out in waves of CONCURRENCY, none starts before a
+		// slot is freed
+		for (int i = 0; i < attempts; i++) {
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(failedAt.get(i) - start);
+			long wave = i / CONCURRENCY + 1;
+			assertTrue("Attempt " + i + " failed after " + elapsed + " ms", elapsed >= wave * CONNECT_TIMEOUT_MS);
+		}
+	}
+
+	/**
+	 * Fills the accept queue of a listener nobody accepts from.
+	 *
+	 * @return Address of the listener, connection attempts to which hang.
+	 */
+	private InetSocketAddress unresponsiveAddress() throws Exception {
+		this.full = ServerSocketChannel.open();
+		this.full.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+		InetSocketAddress address = (InetSocketAddress)this.full.getLocalAddress();
+		for (int i = 0; i < 4; i++) {
+			SocketChannel channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.connect(address);
+			this.backlog.add(channel);
+		}
+		try (Socket probe = new Socket()) {
+			probe.connect(address, CONNECT_TIMEOUT_MS);
+			assumeTrue("Handshakes to a full accept queue are not dropped", false);
+		} catch (SocketTimeoutException expected) {
+			// The queue is full
+		} catch (IOException e) {
+			assumeTrue("Full accept queue refuses handshakes: " + e, false);
+		}
+		return address;
+	}
+
+	private static long connected(CompletionStage<Long> result) throws Exception {
+		return result.toCompletableFuture().get(TIMEOUT_SEC, TimeUnit.SECONDS);
+	}
+
+	private static void assertFailed(CompletionStage<Long> result) throws Exception {
+		CompletableFuture<Long> future = result.toCompletableFuture();
+		try {
+			future.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+			fail("Connection is established");
+		} catch (ExecutionException e) {
+			assertTrue("Failed with " + e.getCause(), e.getCause() instanceof ResourceException);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.api.TCPMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Offloaded delivery with a slow endpoint: the delivery queue fills past
+ * its depth and reading from the connection is suspended. Once the endpoint
+ * catches up, reading is resumed and every frame is delivered.
+ */
+public class DeliveryBackpressureTest {
+
+	private static final int DEPTH = 4;
+	private static final int FRAME_SIZE = 8;
+	private static final int FRAMES = 200;
+	private static final long TIMEOUT_SEC = 5;
+
+	private final GatedEndpointFactory endpoints = new GatedEndpointFactory();
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private SocketChannel peer;
+
+	@Before
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(this.endpoints, spec -> {
+			spec.setOffloadDelivery(true);
+			spec.setDeliveryQueueDepth(DEPTH);
+			// Every frame is a message of its own, however reads split them
+			spec.setFraming("fixed");
+			spec.setFrameFixedLength(FRAME_SIZE);
+		});
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		this.peer = SocketChannel.open(address);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.endpoints.gate.countDown();
+		if (this.peer != null) {
+			this.peer.close();
+		}
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testReadingResumes() throws Exception {
+		// Frames pile up behind the blocked delivery and reading is suspended,
+		// so the second half is only read once reading is resumed
+		this.write(0, FRAMES / 2);
+		Thread.sleep(200);
+		this.write(FRAMES / 2, FRAMES);
+		Thread.sleep(200);
+		this.endpoints.gate.countDown();
+
+		for (int i = 0; i < FRAMES; i++) {
+			RecordingEndpointFactory.Received received = this.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+			assertNotNull("Frame " + i + " is not delivered", received);
+			assertArrayEquals(ByteBuffer.allocate(FRAME_SIZE).putLong(i).array(), received.data);
+		}
+	}
+
+	private void write(int from, int to) throws Exception {
+		ByteBuffer data = ByteBuffer.allocate((to - from) * FRAME_SIZE);
+		for (int i = from; i < to; i++) {
+			data.putLong(i);
+		}
+		data.flip();
+		while (data.hasRemaining()) {
+			this.peer.write(data);
+		}
+	}
+
+	/**
+	 * Endpoints hold every delivery until the gate is opened.
+	 */
+	private static class GatedEndpointFactory extends RecordingEndpointFactory {
+
+		final CountDownLatch gate = new CountDownLatch(1);
+
+		@Override
+		void received(TCPMessage message) {
+			try {
+				this.gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.received(message);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.transaction.xa.XAResource;
+import org.junit.Test;
+
+/**
+ * Endpoints are only reused after a delivery that completed afterDelivery,
+ * any other outcome releases them.
+ */
+public class EndpointPoolTest {
+
+	private static final BiConsumer<MessageEndpoint, Object> NOTHING = (e, m) -> {};
+
+	private final CountingFactory factory = new CountingFactory();
+	private final EndpointPool pool = new EndpointPool(this.factory, false, 1);
+	private final Method method = Object.class.getMethods()[0];
+
+	@Test
+	public void testReuse() {
+		this.pool.deliver(this.method, NOTHING, null);
+		this.pool.deliver(this.method, NOTHING, null);
+
+		assertEquals(1, this.factory.endpoints.size());
+		assertEquals(0, this.factory.endpoints.get(0).released);
+	}
+
+	@Test
+	public void testInvocationExceptionReleases() {
+		this.pool.deliver(this.method, (e, m) -> {
+			throw new IllegalStateException("Test");
+		}, null);
+
+		CountingEndpoint endpoint = this.factory.endpoints.get(0);
+		assertEquals(1, endpoint.afterDeliveries);
+		assertEquals(1, endpoint.released);
+	}
+
+	@Test
+	public void testInvocationErrorReleases() {
+		try {
+			this.pool.deliver(this.method, (e, m) -> {
+				throw new AssertionError("Test");
+			}, null);
+			fail("Error must not be swallowed");
+		} catch (AssertionError e) {
+			// Expected
+		}
+		this.pool.deliver(this.method, NOTHING, null);
+
+		assertEquals(2, this.factory.endpoints.size());
+		assertEquals(1, this.factory.endpoints.get(0).released);
+	}
+
+	@Test
+	public void testAfterDeliveryFailureReleases() {
+		this.factory.failAfterDelivery = true;
+		this.pool.deliver(this.method, NOTHING, null);
+
+		assertEquals(1, this.factory.endpoints.get(0).released);
+	}
+
+	private static class CountingFactory implements MessageEndpointFactory {
+
+		final List<CountingEndpoint> endpoints = new ArrayList<>();
+		boolean failAfterDelivery;
+
+		@Override
+		public MessageEndpoint createEndpoint(XAResource xaResource) {
+			CountingEndpoint endpoint = new CountingEndpoint(this.failAfterDelivery);
+			this.endpoints.add(endpoint);
+			return endpoint;
+		}
+
+		@Override
+		public MessageEndpoint createEndpoint(XAResource xaResource, long timeout) {
+			return this.createEndpoint(xaResource);
+		}
+
+		@Override
+		public boolean isDeliveryTransacted(Method method) {
+			return false;
+		}
+
+		@Override
+		public String getActivationName() {
+			return "test";
+		}
+
+		@Override
+		public Class<?> getEndpointClass() {
+			return CountingEndpoint.class;
+		}
+	}
+
+	private static class CountingEndpoint implements MessageEndpoint {
+
+		private final boolean failAfterDelivery;
+		int afterDeliveries;
+		int released;
+
+		CountingEndpoint(boolean failAfterDelivery) {
+			this.failAfterDelivery = failAfterDelivery;
+		}
+
+		@Override
+		public void beforeDelivery(Method method) {
+		}
+
+		@Override
+		public void afterDelivery() {
+			this.afterDeliveries++;
+			if (this.failAfterDelivery) {
+				throw new IllegalStateException("Test");
+			}
+		}
+
+		@Override
+		public void release() {
+			this.released++;
+		}
+	}
+}
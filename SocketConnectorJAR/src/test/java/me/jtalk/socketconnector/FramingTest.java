@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.resource.spi.InvalidPropertyException;
+import me.jtalk.socketconnector.io.Framing;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Inbound framing over loopback: a frame split between writes and frames
+ * merged into a single write are both delivered one whole frame per message.
+ */
+@RunWith(Parameterized.class)
+public class FramingTest {
+
+	// Equal lengths, so that fixed framing applies too
+	private static final String[] PAYLOADS = {"alpha", "bravo", "delta"};
+	private static final long TIMEOUT_SEC = 5;
+
+	@Parameters(name = "{0}")
+	public static Iterable<Object[]> framings() {
+		return Arrays.asList(new Object[][] {{Framing.LENGTH}, {Framing.DELIMITER}, {Framing.FIXED}});
+	}
+
+	@Parameter
+	public Framing framing;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private SocketChannel peer;
+
+	@Before
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(spec -> {
+			spec.setFraming(this.framing.name().toLowerCase(Locale.ROOT));
+			spec.setFrameBytesToStrip(4);
+			spec.setFrameFixedLength(PAYLOADS[0].length());
+		});
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		this.peer = SocketChannel.open(address);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.peer != null) {
+			this.peer.close();
+		}
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testSplitAndMergedFrames() throws Exception {
+		byte[] first = this.frame(PAYLOADS[0]);
+		this.write(Arrays.copyOfRange(first, 0, 3));
+		// Let the adapter read the partial frame on its own
+		Thread.sleep(100);
+		assertNull("Partial frame is delivered", this.fixture.endpoints.nextMessage(0, TimeUnit.SECONDS));
+		ByteArrayOutputStream rest = new ByteArrayOutputStream();
+		rest.write(first, 3, first.length - 3);
+		for (int i = 1; i < PAYLOADS.length; i++) {
+			rest.write(this.frame(PAYLOADS[i]));
+		}
+		this.write(rest.toByteArray());
+
+		for (String payload : PAYLOADS) {
+			RecordingEndpointFactory.Received received = this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+			assertNotNull("Frame " + payload + " is not delivered", received);
+			assertArrayEquals(bytes(payload), received.data);
+		}
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testMissingPropertyIsRejected() throws Exception {
+		TCPActivationSpec spec = new TCPActivationSpec();
+		spec.setClientId(AdapterFixture.CLIENT_ID);
+		spec.setFraming(this.framing.name().toLowerCase(Locale.ROOT));
+		spec.setFrameDelimiter(null);
+		spec.validate();
+	}
+
+	/**
+	 * Encodes a frame the way the default framing properties expect: a
+	 * 4-byte length prefix, a zero byte delimiter or nothing.
+	 */
+	private byte[] frame(String payload) {
+		byte[] data = bytes(payload);
+		switch (this.framing) {
+			case LENGTH:
+				return ByteBuffer.allocate(4 + data.length).putInt(data.length).put(data).array();
+			case DELIMITER:
+				return Arrays.copyOf(data, data.length + 1);
+			default:
+				return data;
+		}
+	}
+
+	private void write(byte[] data) throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		while (buffer.hasRemaining()) {
+			this.peer.write(buffer);
+		}
+	}
+
+	private static byte[] bytes(String data) {
+		return data.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.io.MulticastGroups;
+import me.jtalk.socketconnector.io.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Multicast group joined on the default interface: datagrams sent to the
+ * group from this host are looped back and delivered to the client.
+ */
+@RunWith(Parameterized.class)
+public class MulticastTest {
+
+	private static final String GROUP = "239.255.42.99";
+	private static final long TIMEOUT_SEC = 5;
+
+	@Parameters(name = "{0}")
+	public static Iterable<Object[]> transports() {
+		return Arrays.asList(new Object[][] {{Transport.NIO}, {Transport.EPOLL}, {Transport.IO_URING}});
+	}
+
+	@Parameter
+	public Transport transport;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private int port;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue(this.transport + " transport is not available", this.transport.isAvailable());
+		this.port = AdapterFixture.freeLoopbackDatagramAddress().getPort();
+		this.fixture = AdapterFixture.udp(spec -> {
+			spec.setTransport(this.transport.name().toLowerCase(Locale.ROOT));
+			spec.setMulticastGroups(GROUP);
+			spec.setMulticastPort(this.port);
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testDefaultInterface() throws Exception {
+		NetworkInterface iface = MulticastGroups.networkInterface("");
+		byte[] data = "tick".getBytes(StandardCharsets.US_ASCII);
+
+		try (DatagramChannel sender = DatagramChannel.open(StandardProtocolFamily.INET)) {
+			sender.setOption(StandardSocketOptions.IP_MULTICAST_IF, iface);
+			sender.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+			sender.send(ByteBuffer.wrap(data), new InetSocketAddress(GROUP, this.port));
+		}
+
+		RecordingEndpointFactory.Received received = this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+		assertNotNull("Multicast datagram is not delivered", received);
+		assertArrayEquals(data, received.data);
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.resource.spi.RetryableUnavailableException;
+import me.jtalk.socketconnector.api.ConnectionClosedException;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Outbound connections with reconnect enabled, against a peer the test
+ * drops and restarts: the ID survives a dropped link, and closing it stops
+ * redialing whatever state the link is in.
+ */
+public class ReconnectTest {
+
+	private static final int RECONNECT_DELAY_MS = 20;
+	private static final long TIMEOUT_SEC = 5;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private InetSocketAddress address;
+	private ServerSocketChannel server;
+
+	@Before
+	public void setUp() throws Exception {
+		this.fixture = AdapterFixture.tcp(spec -> {
+			spec.setReconnect(true);
+			spec.setReconnectDelay(RECONNECT_DELAY_MS);
+			spec.setReconnectMaxDelay(RECONNECT_DELAY_MS * 4);
+		});
+		this.address = AdapterFixture.freeLoopbackAddress();
+		this.startServer();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.server != null) {
+			this.server.close();
+		}
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testRedialKeepsId() throws Exception {
+		long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+		this.server.accept().close();
+		this.assertDisconnected(id, true);
+
+		try (SocketChannel peer = this.server.accept()) {
+			this.sendRetrying(id, "after redial");
+			assertEquals("after redial", receive(peer, "after redial".length()));
+
+			peer.write(ByteBuffer.wrap("reply".getBytes(StandardCharsets.US_ASCII)));
+			RecordingEndpointFactory.Received received = this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+			assertNotNull("Reply is not delivered", received);
+			assertEquals(id, received.connectionId);
+		}
+	}
+
+	@Test
+	public void testSendWhileDownIsRetryable() throws Exception {
+		long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+		SocketChannel first = this.server.accept();
+		this.server.close();
+		first.close();
+		this.assertDisconnected(id, true);
+
+		try {
+			this.send(id, "while down");
+			fail("Data is sent while the link is down");
+		} catch (RetryableUnavailableException expected) {
+			// Redials are refused until the peer is back
+		}
+
+		this.startServer();
+		try (SocketChannel peer = this.server.accept()) {
+			this.sendRetrying(id, "back up");
+			assertEquals("back up", receive(peer, "back up".length()));
+		}
+	}
+
+	@Test
+	public void testCloseWhileDown() throws Exception {
+		long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+		SocketChannel first = this.server.accept();
+		this.server.close();
+		first.close();
+		this.assertDisconnected(id, true);
+
+		this.fixture.adapter.closeTCPConnection(AdapterFixture.CLIENT_ID, id);
+		this.assertDisconnected(id, false);
+		this.assertClosed(id);
+
+		// Nothing is redialed once the peer is back
+		this.startServer();
+		this.server.configureBlocking(false);
+		Thread.sleep(RECONNECT_DELAY_MS * 10);
+		assertNull("Connection is redialed after close", this.server.accept());
+	}
+
+	@Test
+	public void testCloseRacingWithRedial() throws Exception {
+		this.server.configureBlocking(false);
+		for (int i = 0; i < 20; i++) {
+			long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+			this.accept().close();
+			this.assertDisconnected(id, true);
+
+			// Spread closes over the redial delay, before, during and after redialing
+			Thread.sleep(i % (RECONNECT_DELAY_MS * 2));
+			this.fixture.adapter.closeTCPConnection(AdapterFixture.CLIENT_ID, id);
+			this.assertDisconnected(id, false);
+			this.assertClosed(id);
+
+			// A link redialed meanwhile is closed along with the connection
+			Thread.sleep(RECONNECT_DELAY_MS * 4);
+			SocketChannel redialed;
+			while ((redialed = this.server.accept()) != null) {
+				try (SocketChannel peer = redialed) {
+					peer.configureBlocking(true);
+					peer.socket().setSoTimeout((int)TimeUnit.SECONDS.toMillis(TIMEOUT_SEC));
+					InputStream input = peer.socket().getInputStream();
+					try {
+						assertEquals("Redialed link is left open", -1, input.read());
+					} catch (SocketTimeoutException e) {
+						fail("Redialed link is left open");
+					}
+				}
+			}
+			assertNull("Notification after close", this.fixture.endpoints.nextDisconnection(0, TimeUnit.SECONDS));
+		}
+	}
+
+	private void startServer() throws Exception {
+		this.server = ServerSocketChannel.open();
+		this.server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+		this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.address.getPort()));
+	}
+
+	/**
+	 * Accepts from a non-blocking server.
+	 */
+	private SocketChannel accept() throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+		while (System.nanoTime() < deadline) {
+			SocketChannel accepted = this.server.accept();
+			if (accepted != null) {
+				accepted.configureBlocking(true);
+				return accepted;
+			}
+			Thread.sleep(1);
+		}
+		throw new AssertionError("Connection is not dialed");
+	}
+
+	private void assertDisconnected(long id, boolean reconnecting) throws Exception {
+		TCPDisconnectionNotification notification = this.fixture.endpoints.nextDisconnection(TIMEOUT_SEC, TimeUnit.SECONDS);
+		assertNotNull("Disconnection is not notified", notification);
+		assertEquals(id, notification.getId());
+		assertEquals(reconnecting, notification.isReconnecting());
+	}
+
+	private void assertClosed(long id) throws Exception {
+		try {
+			this.send(id, "after close");
+			fail("Data is sent after close");
+		} catch (ConnectionClosedException expected) {
+			// The ID no longer resolves
+		}
+	}
+
+	private void send(long id, String data) throws Exception {
+		this.fixture.adapter.sendTCP(AdapterFixture.CLIENT_ID, id, ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private void sendRetrying(long id, String data) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+		while (true) {
+			try {
+				this.send(id, data);
+				return;
+			} catch (RetryableUnavailableException e) {
+				assertTrue("Link is not restored", System.nanoTime() < deadline);
+				Thread.sleep(1);
+			}
+		}
+	}
+
+	private static String receive(SocketChannel peer, int length) throws Exception {
+		peer.socket().setSoTimeout((int)TimeUnit.SECONDS.toMillis(TIMEOUT_SEC));
+		InputStream input = peer.socket().getInputStream();
+		byte[] data = new byte[length];
+		int read = 0;
+		try {
+			while (read < length) {
+				int count = input.read(data, read, length - read);
+				assertTrue("Connection is closed early", count >= 0);
+				read += count;
+			}
+		} catch (SocketTimeoutException e) {
+			fail("Data is not received");
+		}
+		return new String(data, StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.transaction.xa.XAResource;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.api.TCPMessage;
+import me.jtalk.socketconnector.api.UDPMessage;
+
+/**
+ * Endpoint factory creating {@link RecordingEndpoint}s or
+ * {@link BatchRecordingEndpoint}s, which queue copies of the messages and
+ * notifications delivered for tests to take.
+ */
+class RecordingEndpointFactory implements MessageEndpointFactory {
+
+	/**
+	 * Message data copied out of a delivery, so that it stays valid after
+	 * the delivery returns.
+	 */
+	public static class Received {
+
+		public final long connectionId;
+		public final byte[] data;
+
+		Received(long connectionId, byte[] data) {
+			this.connectionId = connectionId;
+			this.data = data;
+		}
+	}
+
+	private final BlockingQueue<Received> messages = new LinkedBlockingQueue<>();
+	private final BlockingQueue<TCPDisconnectionNotification> disconnections = new LinkedBlockingQueue<>();
+	private final boolean batch;
+
+	public RecordingEndpointFactory() {
+		this(false);
+	}
+
+	/**
+	 * @param batch Whether endpoints are TCP batch listeners.
+	 */
+	public RecordingEndpointFactory(boolean batch) {
+		this.batch = batch;
+	}
+
+	@Override
+	public MessageEndpoint createEndpoint(XAResource xaResource) {
+		return this.batch ? new BatchRecordingEndpoint(this) : new RecordingEndpoint(this);
+	}
+
+	@Override
+	public MessageEndpoint createEndpoint(XAResource xaResource, long timeout) {
+		return this.createEndpoint(xaResource);
+	}
+
+	@Override
+	public boolean isDeliveryTransacted(Method method) {
+		return false;
+	}
+
+	@Override
+	public String getActivationName() {
+		return "test";
+	}
+
+	@Override
+	public Class<?> getEndpointClass() {
+		return this.batch ? BatchRecordingEndpoint.class : RecordingEndpoint.class;
+	}
+
+	/**
+	 * @return Next message delivered, null if none is delivered within the timeout.
+	 */
+	public Received nextMessage(long timeout, TimeUnit unit) throws InterruptedException {
+		return this.messages.poll(timeout, unit);
+	}
+
+	/**
+	 * @return Next disconnection notification delivered, null if none is
+	 * delivered within the timeout.
+	 */
+	public TCPDisconnectionNotification nextDisconnection(long timeout, TimeUnit unit) throws InterruptedException {
+		return this.disconnections.poll(timeout, unit);
+	}
+
+	void received(TCPMessage message) {
+		this.messages.add(new Received(message.getConnectionId(), message.getData()));
+	}
+
+	void received(UDPMessage message) {
+		this.messages.add(new Received(message.getConnectionId(), message.getData()));
+	}
+
+	void disconnected(TCPDisconnectionNotification notification) {
+		this.disconnections.add(notification);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.io.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Listeners sharded with SO_REUSEPORT, started concurrently: each one gets
+ * an acceptor on every listener event loop and accepts connections.
+ */
+@RunWith(Parameterized.class)
+public class ReusePortListenTest {
+
+	private static final int LISTENER_THREADS = 2;
+	private static final int CONNECTIONS = 8;
+	private static final long TIMEOUT_SEC = 5;
+
+	@Parameters(name = "{0}")
+	public static Iterable<Object[]> transports() {
+		return Arrays.asList(new Object[][] {{Transport.EPOLL}, {Transport.IO_URING}});
+	}
+
+	@Parameter
+	public Transport transport;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue(this.transport + " transport is not available", this.transport.isAvailable());
+		this.fixture = AdapterFixture.tcp(spec -> {
+			spec.setTransport(this.transport.name().toLowerCase(Locale.ROOT));
+			spec.setReusePort(true);
+			spec.setListnerThreadsCount(LISTENER_THREADS);
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testConcurrentListen() throws Exception {
+		InetSocketAddress first = AdapterFixture.freeLoopbackAddress();
+		InetSocketAddress second = AdapterFixture.freeLoopbackAddress();
+		CompletionStage<Long> firstListener = this.fixture.adapter.listenTCPAsync(AdapterFixture.CLIENT_ID, first);
+		CompletionStage<Long> secondListener = this.fixture.adapter.listenTCPAsync(AdapterFixture.CLIENT_ID, second);
+		firstListener.toCompletableFuture().get(TIMEOUT_SEC, TimeUnit.SECONDS);
+		secondListener.toCompletableFuture().get(TIMEOUT_SEC, TimeUnit.SECONDS);
+
+		for (int i = 0; i < CONNECTIONS; i++) {
+			InetSocketAddress target = i % 2 == 0 ? first : second;
+			long client = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, target);
+			byte[] data = ("connection " + i).getBytes(StandardCharsets.US_ASCII);
+			this.fixture.adapter.sendTCP(AdapterFixture.CLIENT_ID, client, ByteBuffer.wrap(data));
+
+			RecordingEndpointFactory.Received received = this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+			assertNotNull("Connection " + i + " is not accepted", received);
+			assertArrayEquals(data, received.data);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.RandomAccessFile;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import me.jtalk.socketconnector.io.Allocators;
+import me.jtalk.socketconnector.io.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Multi-gigabyte file sent over loopback with the pooled direct allocator.
+ * The file is never loaded to heap: neither heap usage nor allocations grow
+ * with its size, whether it is sent with sendfile or in chunks.
+ */
+@Category(LargeTests.class)
+@RunWith(Parameterized.class)
+public class SendFileHeapTest {
+
+	private static final Logger log = Logger.getLogger(SendFileHeapTest.class.getName());
+
+	private static final long FILE_SIZE = Long.getLong("socketconnector.test.fileSize", 4L << 30);
+	private static final long HEAP_GROWTH_LIMIT = 64L << 20;
+	private static final long ALLOCATION_LIMIT = 32L << 20;
+	private static final long TIMEOUT_SEC = 300;
+
+	@Parameters(name = "{0}")
+	public static Iterable<Object[]> transports() {
+		return Arrays.asList(new Object[][] {{Transport.NIO}, {Transport.EPOLL}, {Transport.IO_URING}});
+	}
+
+	@Parameter
+	public Transport transport;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private ServerSocketChannel peer;
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue(this.transport + " transport is not available", this.transport.isAvailable());
+		this.fixture = AdapterFixture.tcp(spec -> {
+			spec.setTransport(this.transport.name().toLowerCase(Locale.ROOT));
+			spec.setAllocator(Allocators.POOLED);
+			spec.setPreferDirect(true);
+		});
+		this.peer = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		this.file = Files.createTempFile("socketconnector", ".bin");
+		// Sparse, so that no disk space is taken
+		try (RandomAccessFile f = new RandomAccessFile(this.file.toFile(), "rw")) {
+			f.setLength(FILE_SIZE);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+		if (this.peer != null) {
+			this.peer.close();
+		}
+		if (this.file != null) {
+			Files.delete(this.file);
+		}
+	}
+
+	@Test
+	public void testHeapStaysFlat() throws Exception {
+		CompletableFuture<Long> received = CompletableFuture.supplyAsync(this::drain);
+		long id = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID,
+			(InetSocketAddress)this.peer.getLocalAddress());
+
+		System.gc();
+		long heapBefore = heapUsed();
+		resetHeapPeaks();
+		long collectionsBefore = collections();
+		long collectionTimeBefore = collectionTime();
+		Allocations allocations = Allocations.start();
+
+		this.fixture.adapter.sendTCPFile(AdapterFixture.CLIENT_ID, id, this.file, 0, FILE_SIZE)
+			.toCompletableFuture()
+			.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+		assertEquals(FILE_SIZE, (long)received.get(TIMEOUT_SEC, TimeUnit.SECONDS));
+
+		long allocated = allocations.bytes();
+		long heapGrowth = heapPeak() - heapBefore;
+		log.info(String.format("%s: %d MiB sent, %d KiB allocated, heap peak +%d KiB, %d collections taking %d ms",
+			this.transport, FILE_SIZE >> 20, allocated >> 10, heapGrowth >> 10,
+			collections() - collectionsBefore, collectionTime() - collectionTimeBefore));
+		assertTrue("Allocated " + allocated + " bytes", allocated < ALLOCATION_LIMIT);
+		assertTrue("Heap grown by " + heapGrowth + " bytes", heapGrowth < HEAP_GROWTH_LIMIT);
+	}
+
+	/**
+	 * Reads the connection from the adapter until it is closed or the whole
+	 * file is received.
+	 *
+	 * @return Bytes received.
+	 */
+	private long drain() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+		long total = 0;
+		try (SocketChannel c = this.peer.accept()) {
+			int read;
+			while (total < FILE_SIZE && (read = c.read(buffer)) >= 0) {
+				total += read;
+				buffer.clear();
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException("Receiving failed", e);
+		}
+		return total;
+	}
+
+	private static long heapUsed() {
+		long sum = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				sum += pool.getUsage().getUsed();
+			}
+		}
+		return sum;
+	}
+
+	private static long heapPeak() {
+		long sum = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				sum += pool.getPeakUsage().getUsed();
+			}
+		}
+		return sum;
+	}
+
+	private static void resetHeapPeaks() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	private static long collections() {
+		long sum = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sum += Math.max(0, gc.getCollectionCount());
+		}
+		return sum;
+	}
+
+	private static long collectionTime() {
+		long sum = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sum += Math.max(0, gc.getCollectionTime());
+		}
+		return sum;
+	}
+}
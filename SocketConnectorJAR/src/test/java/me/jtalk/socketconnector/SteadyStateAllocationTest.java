@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.resource.ResourceException;
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.transaction.xa.XAResource;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.api.TCPMessage;
+import me.jtalk.socketconnector.api.TCPMessageListener;
+import me.jtalk.socketconnector.io.Allocators;
+import me.jtalk.socketconnector.io.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Heap allocations of the per-message paths once they are warmed up: a
+ * message is received, dispatched to an endpoint and echoed back with a
+ * single buffer send. Allocations per round trip must stay within a small
+ * bound, so that garbage does not grow back on the hot paths unnoticed.
+ */
+@RunWith(Parameterized.class)
+public class SteadyStateAllocationTest {
+
+	private static final int MESSAGE_SIZE = 64;
+	private static final int WARMUP_ITERATIONS = 10000;
+	private static final int ITERATIONS = 10000;
+	// Netty promise per write and the read-only view of the message take
+	// about 250 bytes. The margin for background threads is smaller than a
+	// message object, so messages must be recycled to pass
+	private static final long BYTES_PER_ITERATION_LIMIT = 288;
+
+	@Parameters(name = "{0}")
+	public static Iterable<Object[]> transports() {
+		return Arrays.asList(new Object[][] {{Transport.NIO}, {Transport.EPOLL}, {Transport.IO_URING}});
+	}
+
+	@Parameter
+	public Transport transport;
+
+	private final EchoEndpointFactory endpoints = new EchoEndpointFactory();
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private SocketChannel peer;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue(this.transport + " transport is not available", this.transport.isAvailable());
+		this.fixture = AdapterFixture.tcp(this.endpoints, spec -> {
+			spec.setTransport(this.transport.name().toLowerCase(Locale.ROOT));
+			spec.setAllocator(Allocators.POOLED);
+			spec.setPreferDirect(true);
+			spec.setZeroCopyReceive(true);
+			spec.setRecycleMessages(true);
+		});
+		this.endpoints.adapter = this.fixture.adapter;
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		this.peer = SocketChannel.open(address);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.peer != null) {
+			this.peer.close();
+		}
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testEcho() throws Exception {
+		ByteBuffer request = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+		ByteBuffer response = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+		this.roundTrips(WARMUP_ITERATIONS, request, response);
+
+		Allocations allocations = Allocations.start();
+		this.roundTrips(ITERATIONS, request, response);
+		long perIteration = allocations.bytes() / ITERATIONS;
+
+		assertEquals(0, this.endpoints.failures.get());
+		assertTrue("Allocated " + perIteration + " bytes per round trip", perIteration < BYTES_PER_ITERATION_LIMIT);
+	}
+
+	private void roundTrips(int count, ByteBuffer request, ByteBuffer response) throws IOException {
+		for (int i = 0; i < count; i++) {
+			request.clear();
+			while (request.hasRemaining()) {
+				this.peer.write(request);
+			}
+			response.clear();
+			while (response.hasRemaining()) {
+				if (this.peer.read(response) < 0) {
+					throw new EOFException("Connection is closed by the adapter");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Endpoint factory whose endpoints send every message back through the
+	 * adapter, without keeping anything.
+	 */
+	private static class EchoEndpointFactory extends RecordingEndpointFactory {
+
+		volatile SocketResourceAdapter adapter;
+		final AtomicInteger failures = new AtomicInteger();
+
+		@Override
+		public MessageEndpoint createEndpoint(XAResource xaResource) {
+			return new EchoEndpoint(this);
+		}
+
+		@Override
+		public Class<?> getEndpointClass() {
+			return EchoEndpoint.class;
+		}
+	}
+
+	private static class EchoEndpoint implements TCPMessageListener, MessageEndpoint {
+
+		private final EchoEndpointFactory factory;
+		// Heap buffers are copied on send, so a single one is reused
+		private final ByteBuffer reply = ByteBuffer.allocate(MESSAGE_SIZE * 16);
+
+		EchoEndpoint(EchoEndpointFactory factory) {
+			this.factory = factory;
+		}
+
+		@Override
+		public void initialized() {
+		}
+
+		@Override
+		public void onMessage(TCPMessage message) {
+			this.reply.clear();
+			this.reply.put(message.getBuffer());
+			this.reply.flip();
+			try {
+				this.factory.adapter.sendTCP(AdapterFixture.CLIENT_ID, message.getConnectionId(), this.reply);
+			} catch (ResourceException e) {
+				this.factory.failures.incrementAndGet();
+			}
+		}
+
+		@Override
+		public void disconnected(TCPDisconnectionNotification notification) {
+		}
+
+		@Override
+		public void beforeDelivery(Method method) {
+		}
+
+		@Override
+		public void afterDelivery() {
+		}
+
+		@Override
+		public void release() {
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.util.Timer;
+import javax.resource.spi.BootstrapContext;
+import javax.resource.spi.XATerminator;
+import javax.resource.spi.work.WorkContext;
+import javax.resource.spi.work.WorkManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Bootstrap context providing a work manager only, which is all the
+ * resource adapter asks for.
+ */
+class StubBootstrapContext implements BootstrapContext {
+
+	private final WorkManager workManager;
+
+	public StubBootstrapContext(WorkManager workManager) {
+		this.workManager = workManager;
+	}
+
+	@Override
+	public WorkManager getWorkManager() {
+		return this.workManager;
+	}
+
+	@Override
+	public XATerminator getXATerminator() {
+		return null;
+	}
+
+	@Override
+	public Timer createTimer() {
+		return new Timer(true);
+	}
+
+	@Override
+	public boolean isContextSupported(Class<? extends WorkContext> workContextClass) {
+		return false;
+	}
+
+	@Override
+	public TransactionSynchronizationRegistry getTransactionSynchronizationRegistry() {
+		return null;
+	}
+}
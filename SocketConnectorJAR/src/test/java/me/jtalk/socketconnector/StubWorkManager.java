@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.resource.spi.work.ExecutionContext;
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkListener;
+import javax.resource.spi.work.WorkManager;
+import javax.resource.spi.work.WorkRejectedException;
+
+/**
+ * Work manager running all the work on a fixed thread pool, like an
+ * application server's default JCA thread pool does.
+ */
+class StubWorkManager implements WorkManager {
+
+	private final ExecutorService executor;
+
+	public StubWorkManager(int threads) {
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "test-work");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@Override
+	public void doWork(Work work) throws WorkException {
+		work.run();
+	}
+
+	@Override
+	public void doWork(Work work, long startTimeout, ExecutionContext execContext, WorkListener workListener) throws WorkException {
+		work.run();
+	}
+
+	@Override
+	public long startWork(Work work) throws WorkException {
+		this.scheduleWork(work);
+		return 0;
+	}
+
+	@Override
+	public long startWork(Work work, long startTimeout, ExecutionContext execContext, WorkListener workListener) throws WorkException {
+		this.scheduleWork(work);
+		return 0;
+	}
+
+	@Override
+	public void scheduleWork(Work work) throws WorkException {
+		try {
+			this.executor.execute(work);
+		} catch (RejectedExecutionException e) {
+			throw new WorkRejectedException(e);
+		}
+	}
+
+	@Override
+	public void scheduleWork(Work work, long startTimeout, ExecutionContext execContext, WorkListener workListener) throws WorkException {
+		this.scheduleWork(work);
+	}
+
+	public void shutdown() throws InterruptedException {
+		this.executor.shutdown();
+		this.executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+}
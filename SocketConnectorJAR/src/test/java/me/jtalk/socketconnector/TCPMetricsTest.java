@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Dispatch statistics of a client with either regular or batch listeners
+ * only: every message is counted once, by the path that delivered it.
+ */
+@RunWith(Parameterized.class)
+public class TCPMetricsTest {
+
+	private static final int MESSAGES = 10;
+	private static final long TIMEOUT_SEC = 5;
+
+	@Parameters(name = "batch={0}")
+	public static Iterable<Object[]> listeners() {
+		return Arrays.asList(new Object[][] {{false}, {true}});
+	}
+
+	@Parameter
+	public boolean batch;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		this.fixture = this.batch ? AdapterFixture.tcpBatch(spec -> {}) : AdapterFixture.tcp(spec -> {});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testDispatchedOnce() throws Exception {
+		InetSocketAddress address = AdapterFixture.freeLoopbackAddress();
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, address);
+		long client = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, address);
+
+		for (int i = 0; i < MESSAGES; i++) {
+			this.fixture.adapter.sendTCP(AdapterFixture.CLIENT_ID, client, ByteBuffer.wrap(("message " + i).getBytes(StandardCharsets.US_ASCII)));
+			assertNotNull("Message " + i + " is not delivered", this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS));
+		}
+
+		assertEquals(MESSAGES, this.dispatchedMessages());
+	}
+
+	/**
+	 * @return Dispatched message count, once the last delivery is accounted for.
+	 */
+	private long dispatchedMessages() throws Exception {
+		ObjectName name = new ObjectName("me.jtalk.socketconnector:type=TCP,clientId=" + AdapterFixture.CLIENT_ID);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+		long result;
+		do {
+			result = (Long)ManagementFactory.getPlatformMBeanServer().getAttribute(name, "DispatchedMessages");
+		} while (result < MESSAGES && System.nanoTime() < deadline);
+		// Let double counting, if any, catch up
+		Thread.sleep(100);
+		return (Long)ManagementFactory.getPlatformMBeanServer().getAttribute(name, "DispatchedMessages");
+	}
+}
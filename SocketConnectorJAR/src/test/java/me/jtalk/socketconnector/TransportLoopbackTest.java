@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.api.ConnectionClosedException;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.io.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Connection lifecycle over loopback, the same for every transport: a
+ * client connects to a listener of its own, data is exchanged both ways
+ * and the connection is closed. Transports not available on the host are
+ * skipped.
+ */
+@RunWith(Parameterized.class)
+public class TransportLoopbackTest {
+
+	private static final long TIMEOUT_SEC = 5;
+
+	@Parameters(name = "{0}")
+	public static Iterable<Object[]> transports() {
+		return Arrays.asList(new Object[][] {{Transport.NIO}, {Transport.EPOLL}, {Transport.IO_URING}});
+	}
+
+	@Parameter
+	public Transport transport;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+	private InetSocketAddress address;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue(this.transport + " transport is not available", this.transport.isAvailable());
+		this.fixture = AdapterFixture.tcp(spec -> spec.setTransport(this.transport.name().toLowerCase(Locale.ROOT)));
+		this.address = AdapterFixture.freeLoopbackAddress();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testListen() throws Exception {
+		long listener = this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, this.address);
+
+		assertTrue(this.fixture.adapter.isTCPListener(AdapterFixture.CLIENT_ID, listener));
+	}
+
+	@Test
+	public void testSendReceive() throws Exception {
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, this.address);
+		long client = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+		assertFalse(this.fixture.adapter.isTCPListener(AdapterFixture.CLIENT_ID, client));
+
+		this.send(client, "ping");
+		RecordingEndpointFactory.Received request = this.receive();
+		assertNotEquals(client, request.connectionId);
+		assertArrayEquals(bytes("ping"), request.data);
+
+		this.send(request.connectionId, "pong");
+		RecordingEndpointFactory.Received response = this.receive();
+		assertEquals(client, response.connectionId);
+		assertArrayEquals(bytes("pong"), response.data);
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		this.fixture.adapter.listenTCP(AdapterFixture.CLIENT_ID, this.address);
+		long client = this.fixture.adapter.createTCPConnection(AdapterFixture.CLIENT_ID, this.address);
+		this.send(client, "ping");
+		long server = this.receive().connectionId;
+
+		this.fixture.adapter.closeTCPConnection(AdapterFixture.CLIENT_ID, client);
+
+		Set<Long> closed = new HashSet<>();
+		closed.add(this.disconnection().getId());
+		closed.add(this.disconnection().getId());
+		assertEquals(new HashSet<>(Arrays.asList(client, server)), closed);
+		try {
+			this.send(client, "ping");
+			fail("Sending to a closed connection must fail");
+		} catch (ConnectionClosedException e) {
+			// Expected
+		}
+	}
+
+	private void send(long id, String data) throws Exception {
+		this.fixture.adapter.sendTCP(AdapterFixture.CLIENT_ID, id, ByteBuffer.wrap(bytes(data)));
+	}
+
+	private RecordingEndpointFactory.Received receive() throws Exception {
+		RecordingEndpointFactory.Received received = this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+		assertNotNull("Message is not delivered", received);
+		return received;
+	}
+
+	private TCPDisconnectionNotification disconnection() throws Exception {
+		TCPDisconnectionNotification notification = this.fixture.endpoints.nextDisconnection(TIMEOUT_SEC, TimeUnit.SECONDS);
+		assertNotNull("Disconnection is not notified", notification);
+		return notification;
+	}
+
+	private static byte[] bytes(String data) {
+		return data.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.jtalk.socketconnector.io.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Bulk datagram sending with segmentation offload: equally sized datagrams
+ * leave as a single segmented packet and are received one by one.
+ */
+public class UDPSegmentationTest {
+
+	private static final int DATAGRAMS = 8;
+	private static final int SIZE = 100;
+	private static final long TIMEOUT_SEC = 5;
+
+	private AdapterFixture<RecordingEndpointFactory> fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue("Segmentation offload requires epoll transport", Transport.EPOLL.isAvailable());
+		this.fixture = AdapterFixture.udp(spec -> {
+			spec.setTransport("epoll");
+			spec.setSegmentationOffload(true);
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.fixture != null) {
+			this.fixture.close();
+		}
+	}
+
+	@Test
+	public void testBulkSend() throws Exception {
+		InetSocketAddress address = AdapterFixture.freeLoopbackDatagramAddress();
+		long receiver = this.fixture.adapter.bindUDP(AdapterFixture.CLIENT_ID, address);
+		long sender = this.fixture.adapter.bindUDP(AdapterFixture.CLIENT_ID, new InetSocketAddress(address.getAddress(), 0));
+
+		List<ByteBuffer> data = new ArrayList<>();
+		for (int i = 0; i < DATAGRAMS; i++) {
+			data.add(ByteBuffer.wrap(datagram(i)));
+		}
+		this.fixture.adapter.sendUDP(AdapterFixture.CLIENT_ID, sender, address, data);
+
+		for (int i = 0; i < DATAGRAMS; i++) {
+			RecordingEndpointFactory.Received received = this.fixture.endpoints.nextMessage(TIMEOUT_SEC, TimeUnit.SECONDS);
+			assertNotNull("Datagram " + i + " is not delivered", received);
+			assertEquals(receiver, received.connectionId);
+			assertArrayEquals(datagram(i), received.data);
+		}
+	}
+
+	private static byte[] datagram(int index) {
+		byte[] result = new byte[SIZE];
+		Arrays.fill(result, (byte)index);
+		return result;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class BuffersTest {
+
+	@Test
+	public void testHeapCopyFollowsPreference() {
+		ByteBuffer data = ByteBuffer.wrap(new byte[] {1, 2, 3});
+
+		ByteBuf heap = Buffers.toByteBuf(new PooledByteBufAllocator(false), data);
+		ByteBuf direct = Buffers.toByteBuf(new PooledByteBufAllocator(true), data);
+		try {
+			assertFalse(heap.isDirect());
+			assertTrue(direct.isDirect());
+			assertEquals(3, heap.readableBytes());
+			assertEquals(0, data.position());
+		} finally {
+			heap.release();
+			direct.release();
+		}
+	}
+
+	@Test
+	public void testFailedCompositeIsReleased() {
+		UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(false);
+		ByteBuffer[] data = {ByteBuffer.wrap(new byte[] {1}), null};
+		try {
+			Buffers.toByteBuf(allocator, data);
+			fail("Null buffer must be rejected");
+		} catch (NullPointerException e) {
+			// Expected
+		}
+		assertEquals(0, allocator.metric().usedHeapMemory() + allocator.metric().usedDirectMemory());
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class ConnectionRegistryTest {
+
+	private static final int THREADS = 8;
+	private static final long TIMEOUT_SEC = 30;
+
+	private final ConnectionRegistry<Object> registry = new ConnectionRegistry<>();
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testStaleIdIsRejected() {
+		Object first = new Object();
+		long stale = this.registry.reserve();
+		assertTrue(this.registry.put(stale, first));
+		assertSame(first, this.registry.remove(stale));
+
+		long reused = this.registry.reserve();
+		assertEquals("Freed slot is not reused", slot(stale), slot(reused));
+		assertNotEquals(stale, reused);
+		Object second = new Object();
+		assertTrue(this.registry.put(reused, second));
+
+		assertNull(this.registry.get(stale));
+		assertFalse(this.registry.put(stale, first));
+		assertNull(this.registry.remove(stale));
+		assertSame(second, this.registry.get(reused));
+	}
+
+	@Test
+	public void testDoubleRemoveFreesOnce() {
+		Object value = new Object();
+		long id = this.registry.reserve();
+		this.registry.put(id, value);
+		assertSame(value, this.registry.remove(id));
+		assertNull(this.registry.remove(id));
+
+		// A slot pushed twice would be handed out to both
+		long first = this.registry.reserve();
+		long second = this.registry.reserve();
+		assertNotEquals(slot(first), slot(second));
+	}
+
+	@Test
+	public void testGrowsAcrossSegments() {
+		int count = 3000;
+		List<Long> ids = new ArrayList<>();
+		Set<Integer> slots = new HashSet<>();
+		for (int i = 0; i < count; i++) {
+			long id = this.registry.reserve();
+			assertTrue(this.registry.put(id, i));
+			assertTrue("Slot is handed out twice", slots.add(slot(id)));
+			ids.add(id);
+		}
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, this.registry.get(ids.get(i)));
+		}
+		AtomicInteger visited = new AtomicInteger();
+		this.registry.forEach(v -> visited.incrementAndGet());
+		assertEquals(count, visited.get());
+	}
+
+	@Test
+	public void testPutRacingWithRemove() throws Exception {
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		for (int i = 0; i < 10000; i++) {
+			long id = this.registry.reserve();
+			Object value = new Object();
+			Future<Boolean> put = this.executor.submit(() -> {
+				barrier.await();
+				return this.registry.put(id, value);
+			});
+			Future<Object> removed = this.executor.submit(() -> {
+				barrier.await();
+				return this.registry.remove(id);
+			});
+			boolean registered = put.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+			Object result = removed.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+
+			if (registered) {
+				assertSame("Registered value is not removed", value, result);
+			}
+			assertTrue(result == null || result == value);
+			assertNull(this.registry.get(id));
+		}
+		AtomicInteger left = new AtomicInteger();
+		this.registry.forEach(v -> left.incrementAndGet());
+		assertEquals("Values are left in freed slots", 0, left.get());
+	}
+
+	@Test
+	public void testConcurrentChurn() throws Exception {
+		Set<Long> issued = ConcurrentHashMap.newKeySet();
+		Set<Integer> live = ConcurrentHashMap.newKeySet();
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			workers.add(this.executor.submit(() -> {
+				for (int i = 0; i < 20000; i++) {
+					long id = this.registry.reserve();
+					assertTrue("ID " + id + " is handed out twice", issued.add(id));
+					assertTrue("Slot " + slot(id) + " is in use", live.add(slot(id)));
+					Object value = new Object();
+					assertTrue(this.registry.put(id, value));
+					assertSame(value, this.registry.get(id));
+					live.remove(slot(id));
+					assertSame(value, this.registry.remove(id));
+				}
+				return null;
+			}));
+		}
+		for (Future<?> worker : workers) {
+			worker.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+		}
+	}
+
+	private static int slot(long id) {
+		return (int)id;
+	}
+}
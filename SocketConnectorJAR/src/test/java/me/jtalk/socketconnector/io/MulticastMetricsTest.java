@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import static org.junit.Assert.assertEquals;
+
+import io.netty.buffer.Unpooled;
+import java.net.InetAddress;
+import java.util.Collections;
+import org.junit.Test;
+
+public class MulticastMetricsTest {
+
+	private static final InetAddress GROUP = InetAddress.getLoopbackAddress();
+	private static final String KEY = GROUP.getHostAddress();
+
+	@Test
+	public void testGap() {
+		MulticastMetrics metrics = receive(4, 1, 2, 5, 6, 10);
+
+		assertEquals(5L, (long)metrics.getReceivedDatagrams().get(KEY));
+		assertEquals(2L, (long)metrics.getSequenceGaps().get(KEY));
+		assertEquals(5L, (long)metrics.getMissingDatagrams().get(KEY));
+		assertEquals(0L, (long)metrics.getOutOfOrderDatagrams().get(KEY));
+	}
+
+	@Test
+	public void testDuplicateAndLate() {
+		MulticastMetrics metrics = receive(4, 1, 2, 2, 4, 3, 5);
+
+		assertEquals(1L, (long)metrics.getSequenceGaps().get(KEY));
+		assertEquals(1L, (long)metrics.getMissingDatagrams().get(KEY));
+		assertEquals(2L, (long)metrics.getOutOfOrderDatagrams().get(KEY));
+		assertEquals(0L, (long)metrics.getSequenceResets().get(KEY));
+	}
+
+	@Test
+	public void testShortSequenceWraps() {
+		MulticastMetrics metrics = receive(4, 0xFFFFFFFEL, 0xFFFFFFFFL, 0, 2, 0xFFFFFFFFL);
+
+		assertEquals(1L, (long)metrics.getSequenceGaps().get(KEY));
+		assertEquals(1L, (long)metrics.getMissingDatagrams().get(KEY));
+		assertEquals(1L, (long)metrics.getOutOfOrderDatagrams().get(KEY));
+		assertEquals(0L, (long)metrics.getSequenceResets().get(KEY));
+	}
+
+	@Test
+	public void testLongSequenceWraps() {
+		// Unsigned maximum is read as -1
+		MulticastMetrics metrics = receive(8, -2, -1, 0, 1);
+
+		assertEquals(0L, (long)metrics.getSequenceGaps().get(KEY));
+		assertEquals(0L, (long)metrics.getOutOfOrderDatagrams().get(KEY));
+		assertEquals(0L, (long)metrics.getSequenceResets().get(KEY));
+	}
+
+	@Test
+	public void testRestartIsReset() {
+		MulticastMetrics metrics = receive(4, 5000, 5001, 1, 2, 3);
+
+		assertEquals(0L, (long)metrics.getSequenceGaps().get(KEY));
+		assertEquals(0L, (long)metrics.getMissingDatagrams().get(KEY));
+		assertEquals(0L, (long)metrics.getOutOfOrderDatagrams().get(KEY));
+		assertEquals(1L, (long)metrics.getSequenceResets().get(KEY));
+	}
+
+	private static MulticastMetrics receive(int length, long... numbers) {
+		MulticastMetrics metrics = new MulticastMetrics(Collections.singletonList(GROUP), 2, length);
+		for (long number : numbers) {
+			// Sequence number follows a two byte header
+			byte[] datagram = new byte[2 + length];
+			if (length == 8) {
+				Unpooled.wrappedBuffer(datagram).setLong(2, number);
+			} else {
+				Unpooled.wrappedBuffer(datagram).setInt(2, (int)number);
+			}
+			metrics.received(GROUP, Unpooled.wrappedBuffer(datagram));
+		}
+		return metrics;
+	}
+}
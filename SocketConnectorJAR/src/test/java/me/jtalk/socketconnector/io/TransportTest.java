@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import org.junit.Test;
+
+public class TransportTest {
+
+	@Test
+	public void testKnownNames() {
+		assertTrue(Transport.isKnown(null));
+		assertTrue(Transport.isKnown("AUTO"));
+		assertTrue(Transport.isKnown("nio"));
+		assertTrue(Transport.isKnown("epoll"));
+		assertTrue(Transport.isKnown("io_uring"));
+		assertFalse(Transport.isKnown("kqueue"));
+	}
+
+	@Test
+	public void testAutoPrefersEpoll() {
+		Transport expected = Transport.EPOLL.isAvailable() ? Transport.EPOLL : Transport.NIO;
+
+		assertEquals(expected, Transport.select(null));
+		assertEquals(expected, Transport.select(Transport.AUTO));
+	}
+
+	@Test
+	public void testAutoNeverSelectsIOUring() {
+		assertNotEquals(Transport.IO_URING, Transport.select(Transport.AUTO));
+	}
+
+	@Test
+	public void testExplicitTransportFallsBackToNIO() {
+		for (Transport t : Transport.values()) {
+			Transport expected = t.isAvailable() ? t : Transport.NIO;
+			assertEquals(expected, Transport.select(t.name().toLowerCase(Locale.ROOT)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownTransport() {
+		Transport.select("kqueue");
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.io;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class WriteQueueMetricsTest {
+
+	@Test
+	public void testFailedWritesAreNotFlushed() {
+		WriteQueueMetrics metrics = new WriteQueueMetrics();
+		for (int i = 0; i < 6; i++) {
+			metrics.queued();
+		}
+		metrics.flushed(2);
+		metrics.failed(3);
+
+		assertEquals(3, metrics.getFailedWrites());
+		assertEquals(1, metrics.getPendingWrites());
+		assertEquals(2.0, metrics.getWritesPerFlush(), 0);
+	}
+}
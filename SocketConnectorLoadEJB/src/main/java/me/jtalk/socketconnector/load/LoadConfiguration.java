@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load parameters, read from socketconnector.load.* system properties so
+ * that they can be changed in the server configuration without rebuilding.
+ */
+class LoadConfiguration {
+
+	private static final String PREFIX = "socketconnector.load.";
+
+	/** Port of the listener connections are established to */
+	public final int port;
+	/** Number of client connections sharing the load */
+	public final int connections;
+	/** Total messages per second over all the connections */
+	public final int rate;
+	/** Message size in bytes, not counting the frame length field */
+	public final int messageSize;
+	public final long durationNanos;
+	public final long reportIntervalNanos;
+
+	private LoadConfiguration(int port, int connections, int rate, int messageSize, long durationSec, long reportIntervalSec) {
+		if (connections < 1 || rate < 1) {
+			throw new IllegalArgumentException("Connections count and message rate must be positive");
+		}
+		if (messageSize < Long.BYTES) {
+			throw new IllegalArgumentException("Message size must be at least " + Long.BYTES + " bytes to hold a timestamp");
+		}
+		this.port = port;
+		this.connections = connections;
+		this.rate = rate;
+		this.messageSize = messageSize;
+		this.durationNanos = TimeUnit.SECONDS.toNanos(durationSec);
+		this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(reportIntervalSec);
+	}
+
+	public static LoadConfiguration fromSystemProperties() {
+		return new LoadConfiguration(
+			Integer.getInteger(PREFIX + "port", 23554),
+			Integer.getInteger(PREFIX + "connections", 16),
+			Integer.getInteger(PREFIX + "rate", 10000),
+			Integer.getInteger(PREFIX + "messageSize", 64),
+			Long.getLong(PREFIX + "duration", 60),
+			Long.getLong(PREFIX + "reportInterval", 5));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d connections to port %d, %d messages/s of %d bytes for %d s",
+			this.connections, this.port, this.rate, this.messageSize, TimeUnit.NANOSECONDS.toSeconds(this.durationNanos));
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.load;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.resource.ResourceException;
+import me.jtalk.socketconnector.api.TCPConnectionFactory;
+import me.jtalk.socketconnector.api.TCPMessage;
+
+/**
+ * Runs a single load session once the listener is initialized. Messages are
+ * received concurrently, so the container must not serialize calls.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class LoadGenerator {
+	private static final Logger log = Logger.getLogger(LoadGenerator.class.getName());
+
+	public static final String CLIENT_ID_STRING = "43760934769043761";
+	public static final long CLIENT_ID = Long.parseLong(CLIENT_ID_STRING);
+
+	private final AtomicBoolean started = new AtomicBoolean(false);
+	private volatile LoadRun run;
+
+	@Resource(lookup = "java:/socket/TCP")
+	TCPConnectionFactory factory;
+
+	@Resource
+	ManagedScheduledExecutorService scheduler;
+
+	public void start() {
+		if (!this.started.compareAndSet(false, true)) {
+			return;
+		}
+		LoadConfiguration configuration = LoadConfiguration.fromSystemProperties();
+		log.info("Load generation is starting: " + configuration);
+		LoadRun newRun = new LoadRun(this.factory, CLIENT_ID, configuration);
+		// Listener side must echo messages as soon as sending starts
+		this.run = newRun;
+		try {
+			newRun.start(this.scheduler);
+		} catch (ResourceException | RuntimeException e) {
+			log.log(Level.SEVERE, "Load generation cannot be started", e);
+			newRun.stop();
+		}
+	}
+
+	public void received(TCPMessage message) {
+		LoadRun local = this.run;
+		if (local != null) {
+			local.received(message);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		LoadRun local = this.run;
+		if (local != null) {
+			local.stop();
+		}
+	}
+}
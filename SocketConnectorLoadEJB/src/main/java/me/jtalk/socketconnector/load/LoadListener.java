@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.load;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ejb.ActivationConfigProperty;
+import javax.ejb.EJB;
+import javax.ejb.MessageDriven;
+import me.jtalk.socketconnector.api.TCPDisconnectionNotification;
+import me.jtalk.socketconnector.api.TCPMessage;
+import me.jtalk.socketconnector.api.TCPMessageListener;
+
+/**
+ * Receives both the load messages on the listener's side and their echoes
+ * on the client's side. Frames carry a 4-byte length prefix, which the
+ * adapter strips before delivery.
+ */
+@MessageDriven(
+	activationConfig = {
+		@ActivationConfigProperty(propertyName = "clientId", propertyValue = LoadGenerator.CLIENT_ID_STRING),
+		@ActivationConfigProperty(propertyName = "framing", propertyValue = "length"),
+		@ActivationConfigProperty(propertyName = "frameLengthFieldLength", propertyValue = "4"),
+		@ActivationConfigProperty(propertyName = "frameBytesToStrip", propertyValue = "4"),
+		@ActivationConfigProperty(propertyName = "coalesceWrites", propertyValue = "true"),
+	},
+	name = "LoadListener"
+)
+public class LoadListener implements TCPMessageListener {
+	private static final Logger log = Logger.getLogger(LoadListener.class.getName());
+
+	@EJB
+	LoadGenerator generator;
+
+	@Override
+	public void initialized() {
+		this.generator.start();
+	}
+
+	@Override
+	public void onMessage(TCPMessage message) {
+		this.generator.received(message);
+	}
+
+	@Override
+	public void disconnected(TCPDisconnectionNotification notification) {
+		if (notification.isError()) {
+			log.log(Level.WARNING, "Load connection " + notification.getId() + " is broken", notification.getCause());
+		}
+	}
+}
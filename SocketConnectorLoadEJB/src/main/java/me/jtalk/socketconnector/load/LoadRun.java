@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2016 Roman Nazarenko <me@jtalk.me>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.jtalk.socketconnector.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.resource.ResourceException;
+import me.jtalk.socketconnector.api.TCPConnection;
+import me.jtalk.socketconnector.api.TCPConnectionFactory;
+import me.jtalk.socketconnector.api.TCPMessage;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Single load session: client connections send timestamped messages to a
+ * local listener at a fixed rate, the listener echoes them back, and round
+ * trip times of the echoes are recorded.
+ *
+ * Timestamps are the times messages were due to be sent rather than the
+ * times they actually were, so that a stalled sender does not hide latency.
+ * Messages due on a connection which is not writable are skipped and
+ * counted.
+ */
+class LoadRun {
+	private static final Logger log = Logger.getLogger(LoadRun.class.getName());
+
+	private static final long TICK_MICROS = 1000;
+	private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	private final TCPConnectionFactory factory;
+	private final long clientId;
+	private final LoadConfiguration configuration;
+
+	private TCPConnection listener;
+	private TCPConnection[] connections = new TCPConnection[0];
+	// Sorted, to tell echoes from messages to be echoed
+	private long[] connectionIds = new long[0];
+
+	private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+	private final Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+	private final LongAdder received = new LongAdder();
+	private final LongAdder skipped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	// Sender state, only touched by the sending task
+	private long startNanos;
+	private long due;
+	private ByteBuffer frame;
+
+	private long lastReportNanos;
+	private long lastReceived;
+	private ScheduledFuture<?> sending;
+	private ScheduledFuture<?> reporting;
+	private ScheduledFuture<?> finishing;
+
+	public LoadRun(TCPConnectionFactory factory, long clientId, LoadConfiguration configuration) {
+		this.factory = factory;
+		this.clientId = clientId;
+		this.configuration = configuration;
+	}
+
+	public void start(ScheduledExecutorService scheduler) throws ResourceException {
+		this.listener = this.factory.listen(this.clientId, new InetSocketAddress("127.0.0.1", this.configuration.port));
+		InetSocketAddress target = new InetSocketAddress("127.0.0.1", this.configuration.port);
+		TCPConnection[] created = new TCPConnection[this.configuration.connections];
+		long[] ids = new long[created.length];
+		for (int i = 0; i < created.length; i++) {
+			created[i] = this.factory.createConnection(this.clientId, target);
+			ids[i] = created[i].getId();
+		}
+		Arrays.sort(ids);
+		this.connections = created;
+		this.connectionIds = ids;
+
+		// Heap buffers are copied on send, so the frame can be reused right away
+		this.frame = ByteBuffer.allocate(Integer.BYTES + this.configuration.messageSize);
+		this.frame.putInt(0, this.configuration.messageSize);
+		this.startNanos = System.nanoTime();
+		this.lastReportNanos = this.startNanos;
+		this.sending = scheduler.scheduleAtFixedRate(this::send, 0, TICK_MICROS, TimeUnit.MICROSECONDS);
+		this.reporting = scheduler.scheduleAtFixedRate(this::report,
+			this.configuration.reportIntervalNanos, this.configuration.reportIntervalNanos, TimeUnit.NANOSECONDS);
+		this.finishing = scheduler.schedule(this::finish, this.configuration.durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void received(TCPMessage message) {
+		ByteBuffer data = message.getBuffer();
+		if (Arrays.binarySearch(this.connectionIds, message.getConnectionId()) >= 0) {
+			long latency = System.nanoTime() - data.getLong(data.position());
+			this.recorder.recordValue(Math.min(Math.max(latency, 0), MAX_LATENCY_NANOS));
+			this.received.increment();
+			return;
+		}
+		ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(0, data.remaining());
+		try (TCPConnection connection = this.factory.getConnection(this.clientId, message.getConnectionId())) {
+			connection.send(header, data);
+		} catch (ResourceException e) {
+			log.log(Level.FINE, "Echo failed", e);
+		}
+	}
+
+	public void stop() {
+		cancel(this.sending);
+		cancel(this.reporting);
+		cancel(this.finishing);
+		for (TCPConnection connection : this.connections) {
+			disconnect(connection);
+		}
+		disconnect(this.listener);
+	}
+
+	private void send() {
+		long elapsed = System.nanoTime() - this.startNanos;
+		long target = elapsed * this.configuration.rate / TimeUnit.SECONDS.toNanos(1);
+		while (this.due < target) {
+			TCPConnection connection = this.connections[(int)(this.due % this.connections.length)];
+			long intended = this.startNanos + this.due * TimeUnit.SECONDS.toNanos(1) / this.configuration.rate;
+			this.due++;
+			try {
+				if (!connection.isWritable()) {
+					this.skipped.increment();
+					continue;
+				}
+				this.frame.putLong(Integer.BYTES, intended);
+				connection.send(this.frame.duplicate());
+			} catch (ResourceException e) {
+				this.failed.increment();
+			}
+		}
+	}
+
+	private void report() {
+		long now = System.nanoTime();
+		long receivedNow = this.received.sum();
+		Histogram interval;
+		synchronized (this.total) {
+			interval = this.recorder.getIntervalHistogram();
+			this.total.add(interval);
+		}
+		double seconds = (now - this.lastReportNanos) / (double)TimeUnit.SECONDS.toNanos(1);
+		log.info(String.format("Load: %.0f messages/s, round trip us p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f; "
+				+ "%d skipped as not writable, %d failed",
+			(receivedNow - this.lastReceived) / seconds,
+			micros(interval.getValueAtPercentile(50)), micros(interval.getValueAtPercentile(90)),
+			micros(interval.getValueAtPercentile(99)), micros(interval.getValueAtPercentile(99.9)),
+			micros(interval.getMaxValue()), this.skipped.sum(), this.failed.sum()));
+		this.lastReportNanos = now;
+		this.lastReceived = receivedNow;
+	}
+
+	private void finish() {
+		cancel(this.sending);
+		cancel(this.reporting);
+		this.report();
+		double seconds = (System.nanoTime() - this.startNanos) / (double)TimeUnit.SECONDS.toNanos(1);
+		ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+		try (PrintStream output = new PrintStream(distribution, false, "UTF-8")) {
+			synchronized (this.total) {
+				this.total.outputPercentileDistribution(output, NANOS_PER_MICRO);
+			}
+			log.info(String.format("Load generation finished: %s; %d echoes received, %.0f messages/s on average, "
+					+ "%d skipped, %d failed. Round trip distribution in microseconds:%n%s",
+				this.configuration, this.received.sum(), this.received.sum() / seconds, this.skipped.sum(), this.failed.sum(),
+				distribution.toString("UTF-8")));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is not supported", e);
+		}
+		this.stop();
+	}
+
+	private static double micros(long nanos) {
+		return nanos / NANOS_PER_MICRO;
+	}
+
+	private static void cancel(ScheduledFuture<?> task) {
+		if (task != null) {
+			task.cancel(false);
+		}
+	}
+
+	private static void disconnect(TCPConnection connection) {
+		if (connection == null) {
+			return;
+		}
+		try {
+			connection.disconnect();
+			connection.close();
+		} catch (ResourceException e) {
+			log.log(Level.FINE, "Load connection closing failed", e);
+		}
+	}
+}